@@ -0,0 +1,83 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.dao.FilmDbStorage;
+import ru.yandex.practicum.filmorate.dao.UserDbStorage;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.EntityVersions;
+import ru.yandex.practicum.filmorate.service.FilmLoader;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserLoader;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Горячие пути фильмов: рейтинг, карточка фильма, лайк и чтение через сервис.
+ * Throughput даёт пропускную способность, SampleTime — перцентили задержки.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx8g"})
+public class FilmBenchmark {
+    @Param({"10000", "1000000", "10000000"})
+    private int likes;
+
+    // 0 — холодный кэш: каждое чтение фильма идёт в базу и измеряет загрузку графа фильма
+    @Param({"0", "10000"})
+    private long cacheSize;
+
+    private SeededDatabase database;
+    private FilmDbStorage filmStorage;
+    private FilmService filmService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = SeededDatabase.create("films-" + likes, likes);
+        filmStorage = SeededDatabase.filmStorage(database.jdbcTemplate, cacheSize);
+        UserDbStorage userStorage = SeededDatabase.userStorage(database.jdbcTemplate, cacheSize);
+        filmService = new FilmService(filmStorage, new FilmLoader(filmStorage), new UserLoader(userStorage),
+                Optional.empty(), new EntityVersions());
+        filmStorage.loadIndexes();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public List<Film> getTopFilms() {
+        return filmStorage.getTopFilms(10);
+    }
+
+    @Benchmark
+    public Optional<Film> getFilmById() {
+        return filmStorage.getFilmById(randomFilm());
+    }
+
+    /**
+     * Лайк сразу снимается, чтобы объём данных не менялся от итерации к итерации.
+     */
+    @Benchmark
+    public void addLike() {
+        int filmId = randomFilm();
+        int userId = ThreadLocalRandom.current().nextInt(database.users) + 1;
+        filmStorage.addLike(filmId, userId);
+        filmStorage.removeLike(filmId, userId);
+    }
+
+    @Benchmark
+    public Film filmServiceGetFilmById() {
+        return filmService.getFilmById(randomFilm());
+    }
+
+    private int randomFilm() {
+        return ThreadLocalRandom.current().nextInt(database.films) + 1;
+    }
+}
@@ -0,0 +1,77 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.dao.FilmDbStorage;
+import ru.yandex.practicum.filmorate.metrics.MethodMetricsAspect;
+import ru.yandex.practicum.filmorate.metrics.StatementCountingDataSource;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Цена инструментирования: те же вызовы хранилища без метрик и через прокси с таймером
+ * и подсчётом SQL-запросов. Разница между парами бенчмарков — накладные расходы на вызов.
+ * Кэш сущностей выключен, чтобы чтение фильма выполняло запросы, которые считает прокси.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class MetricsOverheadBenchmark {
+    private SeededDatabase database;
+    private FilmStorage plain;
+    private FilmStorage instrumented;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = SeededDatabase.create("metrics", 100_000);
+        FilmDbStorage plainStorage = SeededDatabase.filmStorage(database.jdbcTemplate, 0);
+        plainStorage.loadIndexes();
+        plain = plainStorage;
+
+        FilmDbStorage countedStorage = SeededDatabase.filmStorage(
+                new JdbcTemplate(new StatementCountingDataSource(database.dataSource)), 0);
+        countedStorage.loadIndexes();
+        AspectJProxyFactory factory = new AspectJProxyFactory(countedStorage);
+        factory.addAspect(new MethodMetricsAspect(new SimpleMeterRegistry()));
+        instrumented = factory.getProxy();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public List<Film> getTopFilmsPlain() {
+        return plain.getTopFilms(10);
+    }
+
+    @Benchmark
+    public List<Film> getTopFilmsInstrumented() {
+        return instrumented.getTopFilms(10);
+    }
+
+    @Benchmark
+    public Optional<Film> getFilmByIdPlain() {
+        return plain.getFilmById(randomFilm());
+    }
+
+    @Benchmark
+    public Optional<Film> getFilmByIdInstrumented() {
+        return instrumented.getFilmById(randomFilm());
+    }
+
+    private int randomFilm() {
+        return ThreadLocalRandom.current().nextInt(database.films) + 1;
+    }
+}
@@ -0,0 +1,102 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.dao.ChangeLog;
+import ru.yandex.practicum.filmorate.dao.FilmDbStorage;
+import ru.yandex.practicum.filmorate.dao.ReferenceDataRegistry;
+import ru.yandex.practicum.filmorate.dao.UserDbStorage;
+import ru.yandex.practicum.filmorate.storage.memory.EntityCache;
+
+import java.util.Optional;
+
+/**
+ * H2 в памяти со схемой из миграций приложения и синтетическими данными заданного объёма.
+ * Каждый пользователь лайкает 100 фильмов и дружит с 20 пользователями, поэтому
+ * число пользователей — likes / 100. Данные строятся детерминированно, без случайности.
+ */
+final class SeededDatabase implements AutoCloseable {
+    private static final int LIKES_PER_USER = 100;
+    private static final int FRIENDS_PER_USER = 20;
+    private static final int USERS_PER_STATEMENT = 10_000;
+
+    final HikariDataSource dataSource;
+    final JdbcTemplate jdbcTemplate;
+    final int users;
+    final int films;
+
+    private SeededDatabase(String name, int likes) {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        dataSource.setUsername("sa");
+        dataSource.setMaximumPoolSize(8);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        users = Math.max(1, likes / LIKES_PER_USER);
+        films = likes >= 1_000_000 ? 10_000 : 1_000;
+    }
+
+    static SeededDatabase create(String name, int likes) {
+        SeededDatabase database = new SeededDatabase(name, likes);
+        database.seed();
+        return database;
+    }
+
+    private void seed() {
+        Flyway.configure().dataSource(dataSource).load().migrate();
+
+        jdbcTemplate.update("INSERT INTO films (name, description, release_date, duration, mpa_id) "
+                + "SELECT 'film' || X, 'description' || X, DATEADD('DAY', MOD(X, 9000), DATE '1990-01-01'), "
+                + "90 + MOD(X, 60), MOD(X, 5) + 1 FROM SYSTEM_RANGE(1, ?)", films);
+        jdbcTemplate.update("INSERT INTO film_genre (film_id, genre_id) "
+                + "SELECT X, MOD(X, 6) + 1 FROM SYSTEM_RANGE(1, ?)", films);
+
+        for (int from = 1; from <= users; from += USERS_PER_STATEMENT) {
+            int to = Math.min(users, from + USERS_PER_STATEMENT - 1);
+            jdbcTemplate.update("INSERT INTO users (name, email, login, birthday) "
+                    + "SELECT 'user' || X, 'user' || X || '@example.com', 'user' || X, DATE '1990-01-01' "
+                    + "FROM SYSTEM_RANGE(?, ?)", from, to);
+            // 17 и 7 взаимно просты с числом фильмов и пользователей, поэтому пары не повторяются
+            jdbcTemplate.update("INSERT INTO film_likes (user_id, film_id) "
+                    + "SELECT u.X, MOD(u.X * 31 + k.X * 17, ?) + 1 FROM SYSTEM_RANGE(?, ?) u, SYSTEM_RANGE(1, ?) k",
+                    films, from, to, LIKES_PER_USER);
+        }
+        for (int from = 1; from <= users; from += USERS_PER_STATEMENT) {
+            int to = Math.min(users, from + USERS_PER_STATEMENT - 1);
+            jdbcTemplate.update("INSERT INTO friends (user_id, friend_id) "
+                    + "SELECT u.X, MOD(u.X + k.X * 7, ?) + 1 FROM SYSTEM_RANGE(?, ?) u, SYSTEM_RANGE(1, ?) k",
+                    users, from, to, FRIENDS_PER_USER);
+        }
+        jdbcTemplate.update("UPDATE films f "
+                + "SET likes_count = (SELECT COUNT(*) FROM film_likes fl WHERE fl.film_id = f.film_id)");
+    }
+
+    /**
+     * Хранилища собираются так же, как в приложении, но без контекста Spring.
+     * cacheSize 0 выключает кэш сущностей: иначе после прогрева все фильмы и пользователи набора
+     * лежат в кэше, и чтение по id измеряет попадание в Caffeine, а не запросы к базе.
+     */
+    static FilmDbStorage filmStorage(JdbcTemplate jdbcTemplate, long cacheSize) {
+        return new FilmDbStorage(jdbcTemplate, new ReferenceDataRegistry(jdbcTemplate), transactionTemplate(jdbcTemplate),
+                new ChangeLog(jdbcTemplate), cacheSize, EntityCache.DEFAULT_EXPIRE_AFTER_WRITE,
+                new SimpleMeterRegistry(), Optional.empty());
+    }
+
+    static UserDbStorage userStorage(JdbcTemplate jdbcTemplate, long cacheSize) {
+        return new UserDbStorage(jdbcTemplate, transactionTemplate(jdbcTemplate), new ChangeLog(jdbcTemplate),
+                cacheSize, EntityCache.DEFAULT_EXPIRE_AFTER_WRITE, new SimpleMeterRegistry(), Optional.empty());
+    }
+
+    private static TransactionTemplate transactionTemplate(JdbcTemplate jdbcTemplate) {
+        return new TransactionTemplate(new DataSourceTransactionManager(jdbcTemplate.getDataSource()));
+    }
+
+    @Override
+    public void close() {
+        jdbcTemplate.execute("SHUTDOWN");
+        dataSource.close();
+    }
+}
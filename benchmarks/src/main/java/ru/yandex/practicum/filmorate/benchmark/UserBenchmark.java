@@ -0,0 +1,57 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.dao.UserDbStorage;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.util.Collection;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Чтение друзей и общих друзей. Объём данных задаётся числом лайков, как в {@link FilmBenchmark},
+ * чтобы число пользователей совпадало между наборами.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx8g"})
+public class UserBenchmark {
+    @Param({"10000", "1000000", "10000000"})
+    private int likes;
+
+    // 0 — холодный кэш: друзья каждый раз читаются из базы
+    @Param({"0", "10000"})
+    private long cacheSize;
+
+    private SeededDatabase database;
+    private UserDbStorage userStorage;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = SeededDatabase.create("users-" + likes, likes);
+        userStorage = SeededDatabase.userStorage(database.jdbcTemplate, cacheSize);
+        userStorage.loadFriendGraph();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public Collection<User> getUserFriends() {
+        return userStorage.getUserFriends(randomUser());
+    }
+
+    @Benchmark
+    public Collection<User> getCommonFriends() {
+        return userStorage.getCommonFriends(randomUser(), randomUser());
+    }
+
+    private int randomUser() {
+        return ThreadLocalRandom.current().nextInt(database.users) + 1;
+    }
+}
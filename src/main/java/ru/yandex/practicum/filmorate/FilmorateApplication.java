@@ -2,11 +2,22 @@ package ru.yandex.practicum.filmorate;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class FilmorateApplication {
 	public static void main(String[] args) {
-		SpringApplication.run(FilmorateApplication.class, args);
+		ConfigurableApplicationContext context = SpringApplication.run(FilmorateApplication.class, args);
+		Environment environment = context.getEnvironment();
+		// Генератор пишет в базу мимо индексов в памяти, поэтому после генерации приложение завершается
+		if (environment.acceptsProfiles(Profiles.of("generate"))
+				&& environment.getProperty("filmorate.generate.exit", Boolean.class, true)) {
+			System.exit(SpringApplication.exit(context));
+		}
 	}
 
 }
@@ -0,0 +1,58 @@
+package ru.yandex.practicum.filmorate.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import ru.yandex.practicum.filmorate.routing.ReplicaRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+
+/**
+ * Оборачивает DataSource в {@link ConnectionLimitingDataSource}.
+ * Число разрешений по умолчанию равно размеру пула Hikari.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "filmorate.datasource.limiter.enabled", havingValue = "true")
+public class ConnectionLimiterConfig {
+
+    @Bean
+    public static BeanPostProcessor connectionLimiterPostProcessor(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                // При чтении с реплики ограничиваются пулы основной базы и реплики по отдельности
+                if (!(bean instanceof DataSource dataSource) || bean instanceof ConnectionLimitingDataSource
+                        || bean instanceof ReplicaRoutingDataSource) {
+                    return bean;
+                }
+                int poolSize = hikariPoolSize(dataSource);
+                int maxConnections = environment.getProperty("filmorate.datasource.limiter.max-connections",
+                        Integer.class, poolSize);
+                Duration acquireTimeout = environment.getProperty("filmorate.datasource.limiter.acquire-timeout",
+                        Duration.class, Duration.ofSeconds(5));
+                log.info("Ограничение одновременных соединений для {}: {}, ожидание {}", beanName, maxConnections,
+                        acquireTimeout);
+                return new ConnectionLimitingDataSource(dataSource, maxConnections, acquireTimeout);
+            }
+        };
+    }
+
+    private static int hikariPoolSize(DataSource dataSource) {
+        // DataSource может быть уже обёрнут другими прокси, поэтому пул ищется через unwrap
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                return dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+            }
+        } catch (SQLException e) {
+            log.warn("Не удалось определить размер пула соединений: {}", e.getMessage());
+        }
+        return 10;
+    }
+}
@@ -0,0 +1,45 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.yandex.practicum.filmorate.model.BulkResult;
+import ru.yandex.practicum.filmorate.service.BulkIngestService;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+@Slf4j
+@RestController
+@RequestMapping("/bulk")
+@RequiredArgsConstructor
+public class BulkController {
+    private final BulkIngestService bulkIngestService;
+
+    @PostMapping(value = "/films", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public BulkResult importFilms(InputStream body) throws IOException {
+        log.info("Массовая загрузка фильмов");
+        return bulkIngestService.importFilms(body);
+    }
+
+    @PostMapping(value = "/users", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public BulkResult importUsers(InputStream body) throws IOException {
+        log.info("Массовая загрузка пользователей");
+        return bulkIngestService.importUsers(body);
+    }
+
+    @PostMapping(value = "/likes", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public BulkResult importLikes(InputStream body) throws IOException {
+        log.info("Массовая загрузка лайков");
+        return bulkIngestService.importLikes(body);
+    }
+
+    @PostMapping(value = "/friends", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public BulkResult importFriendships(InputStream body) throws IOException {
+        log.info("Массовая загрузка дружеских связей");
+        return bulkIngestService.importFriendships(body);
+    }
+}
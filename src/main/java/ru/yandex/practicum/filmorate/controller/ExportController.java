@@ -0,0 +1,49 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.service.ExportService;
+
+@Slf4j
+@RestController
+@RequestMapping("/export")
+@RequiredArgsConstructor
+public class ExportController {
+    private final ExportService exportService;
+
+    @GetMapping(value = "/films", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportFilms() {
+        log.info("Выгрузка фильмов");
+        return ndjson(exportService::exportFilms);
+    }
+
+    @GetMapping(value = "/users", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportUsers() {
+        log.info("Выгрузка пользователей");
+        return ndjson(exportService::exportUsers);
+    }
+
+    @GetMapping(value = "/likes", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportLikes() {
+        log.info("Выгрузка лайков");
+        return ndjson(exportService::exportLikes);
+    }
+
+    @GetMapping(value = "/friends", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportFriendships() {
+        log.info("Выгрузка дружеских связей");
+        return ndjson(exportService::exportFriendships);
+    }
+
+    private ResponseEntity<StreamingResponseBody> ndjson(StreamingResponseBody body) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+}
@@ -5,11 +5,15 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import ru.yandex.practicum.filmorate.model.CursorPage;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.EntityVersions;
 import ru.yandex.practicum.filmorate.service.FilmService;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 @Slf4j
 @RestController
@@ -17,52 +21,94 @@ import java.util.List;
 public class FilmController {
 
     private final FilmService filmService;
+    private final EntityVersions versions;
 
-    public FilmController(FilmService filmService) {
+    public FilmController(FilmService filmService, EntityVersions versions) {
         this.filmService = filmService;
+        this.versions = versions;
     }
 
     @PostMapping
     public Film createFilm(@Valid @RequestBody Film film) {
-        log.info("Создание фильма: {}", film);
+        log.info("Создание фильма «{}»", film.getName());
         return filmService.addFilm(film);
     }
 
     @PutMapping
     public Film updateFilm(@Valid @RequestBody Film film) {
-        log.info("Обновление фильма: {}", film);
+        log.info("Обновление фильма с id {}", film.getId());
         return filmService.updateFilm(film);
     }
 
-    @GetMapping
+    @GetMapping(params = {"!ids", "!limit", "!after"})
     public Collection<Film> getAllFilms() {
         log.info("Получение всех фильмов");
         return filmService.getAllFilms();
     }
 
+    @GetMapping(params = {"ids", "!limit", "!after"})
+    public List<Film> getFilmsByIds(@RequestParam List<Integer> ids) {
+        log.info("Получение фильмов по списку id, количество: {}", ids.size());
+        return filmService.getFilmsByIds(ids);
+    }
+
+    // Без limit (after без limit, ids вместе с limit) не подходит ни один обработчик, и запрос получает 400
+    @GetMapping(params = {"limit", "!ids"})
+    public CursorPage<Film> getFilmsPage(@RequestParam(required = false) Integer after, @RequestParam int limit) {
+        log.info("Получение страницы фильмов после id {} размером {}", after, limit);
+        return filmService.getFilmsPage(after, limit);
+    }
+
+    @GetMapping("/search")
+    public List<Film> searchFilms(@RequestParam String query,
+                                  @RequestParam(defaultValue = "10") int limit,
+                                  @RequestParam(defaultValue = "true") boolean popularityBoost) {
+        log.debug("Поиск фильмов по запросу «{}», не более {}", query, limit);
+        return filmService.searchFilms(query, limit, popularityBoost);
+    }
+
     @GetMapping("/{id}")
-    public Film getFilmById(@PathVariable int id) {
-        log.info("Получение фильма с id {}", id);
+    public Film getFilmById(@PathVariable int id, WebRequest request) {
+        log.debug("Получение фильма с id {}", id);
+        // Версия читается до загрузки фильма; при совпадении тега фильм не загружается и тело не сериализуется
+        EntityVersions.Version version = versions.film(id);
+        if (request.checkNotModified(versions.etag("film-" + id, version), version.modifiedAt())) {
+            return null;
+        }
         return filmService.getFilmById(id);
     }
 
     @PutMapping("/{filmId}/like/{userId}")
     public ResponseEntity<Void> addLike(@PathVariable int filmId, @PathVariable int userId) {
-        log.info("Добавление лайка к фильму с ID: {} от пользователя с ID: {}", filmId, userId);
+        log.debug("Добавление лайка к фильму с ID: {} от пользователя с ID: {}", filmId, userId);
         filmService.addLike(filmId, userId);
         return ResponseEntity.status(HttpStatus.OK).build();
     }
 
     @DeleteMapping("/{filmId}/like/{userId}")
     public ResponseEntity<Void> removeLike(@PathVariable int filmId, @PathVariable int userId) {
-        log.info("Удаление лайка к фильму с ID: {} от пользователя с ID: {}", filmId, userId);
+        log.debug("Удаление лайка к фильму с ID: {} от пользователя с ID: {}", filmId, userId);
         filmService.removeLike(filmId, userId);
         return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
     }
 
+    @PostMapping("/likes/repair")
+    public Map<String, Integer> repairLikeCounts() {
+        log.info("Сверка счётчиков лайков");
+        return Map.of("repaired", filmService.repairLikeCounts());
+    }
+
     @GetMapping("/popular")
-    public List<Film> getTopFilms(@RequestParam(defaultValue = "10") int count) {
-        log.info("Получение топ-{} популярных фильмов", count);
-        return filmService.getTopFilms(count);
+    public List<Film> getTopFilms(@RequestParam(defaultValue = "10") int count,
+                                  @RequestParam(required = false) Integer genreId,
+                                  @RequestParam(required = false) Integer year,
+                                  @RequestParam(required = false) Integer mpaId,
+                                  WebRequest request) {
+        log.debug("Получение топ-{} популярных фильмов, жанр {}, год {}, MPA {}", count, genreId, year, mpaId);
+        EntityVersions.Version version = versions.filmCollection();
+        if (request.checkNotModified(versions.etag("popular", version), version.modifiedAt())) {
+            return null;
+        }
+        return filmService.getPopularFilms(count, genreId, year, mpaId);
     }
 }
\ No newline at end of file
@@ -2,8 +2,10 @@ package ru.yandex.practicum.filmorate.controller;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.service.EntityVersions;
 import ru.yandex.practicum.filmorate.service.GenreService;
 
 import java.util.Collection;
@@ -13,14 +15,23 @@ import java.util.Collection;
 @RequiredArgsConstructor
 public class GenreController {
     private final GenreService genreService;
+    private final EntityVersions versions;
 
     @GetMapping
-    public Collection<Genre> getAllGenres() {
+    public Collection<Genre> getAllGenres(WebRequest request) {
+        EntityVersions.Version version = versions.referenceData();
+        if (request.checkNotModified(versions.etag("genres", version), version.modifiedAt())) {
+            return null;
+        }
         return genreService.getAllGenres();
     }
 
     @GetMapping("/{id}")
-    public Genre getGenreById(@PathVariable Integer id) {
+    public Genre getGenreById(@PathVariable Integer id, WebRequest request) {
+        EntityVersions.Version version = versions.referenceData();
+        if (request.checkNotModified(versions.etag("genre-" + id, version), version.modifiedAt())) {
+            return null;
+        }
         return genreService.getGenreById(id)
                 .orElseThrow(() -> new NotFoundException("Жанр с id " + id + " не найден"));
     }
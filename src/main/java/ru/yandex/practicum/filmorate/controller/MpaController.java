@@ -3,8 +3,10 @@ package ru.yandex.practicum.filmorate.controller;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.service.EntityVersions;
 import ru.yandex.practicum.filmorate.service.MpaService;
 
 import java.util.Collection;
@@ -14,14 +16,23 @@ import java.util.Collection;
 @RequiredArgsConstructor
 public class MpaController {
     private final MpaService mpaService;
+    private final EntityVersions versions;
 
     @GetMapping
-    public Collection<Mpa> getAllMpa() {
+    public Collection<Mpa> getAllMpa(WebRequest request) {
+        EntityVersions.Version version = versions.referenceData();
+        if (request.checkNotModified(versions.etag("mpa", version), version.modifiedAt())) {
+            return null;
+        }
         return mpaService.getAllMpa();
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Mpa> getMpaById(@PathVariable Integer id) {
+    public ResponseEntity<Mpa> getMpaById(@PathVariable Integer id, WebRequest request) {
+        EntityVersions.Version version = versions.referenceData();
+        if (request.checkNotModified(versions.etag("mpa-" + id, version), version.modifiedAt())) {
+            return null;
+        }
         Mpa mpa = mpaService.getMpaById(id)
                 .orElseThrow(() -> new NotFoundException("MPA рейтинг с ID " + id + " не найден"));
         return ResponseEntity.ok(mpa);
@@ -0,0 +1,24 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.yandex.practicum.filmorate.service.ReferenceDataService;
+
+@Slf4j
+@RestController
+@RequestMapping("/reference-data")
+@RequiredArgsConstructor
+public class ReferenceDataController {
+    private final ReferenceDataService referenceDataService;
+
+    @PostMapping("/reload")
+    public ResponseEntity<Void> reload() {
+        log.info("Перезагрузка справочников жанров и MPA");
+        referenceDataService.reload();
+        return ResponseEntity.noContent().build();
+    }
+}
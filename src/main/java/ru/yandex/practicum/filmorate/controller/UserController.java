@@ -4,10 +4,16 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import ru.yandex.practicum.filmorate.model.CursorPage;
+import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.EntityVersions;
+import ru.yandex.practicum.filmorate.service.FilmService;
 import ru.yandex.practicum.filmorate.service.UserService;
 
 import java.util.Collection;
+import java.util.List;
 
 @Slf4j
 @RestController
@@ -16,28 +22,47 @@ import java.util.Collection;
 public class UserController {
 
     private final UserService userService;
+    private final FilmService filmService;
+    private final EntityVersions versions;
 
     @PostMapping
     public User addUser(@Valid @RequestBody User user) {
-        log.info("Создание пользователя: {}", user);
+        log.info("Создание пользователя с логином {}", user.getLogin());
         return userService.addUser(user);
     }
 
     @PutMapping
     public User updateUser(@Valid @RequestBody User user) {
-        log.info("Обновление пользователя: {}", user);
+        log.info("Обновление пользователя с id {}", user.getId());
         return userService.updateUser(user);
     }
 
-    @GetMapping
+    @GetMapping(params = {"!ids", "!limit", "!after"})
     public Collection<User> getAllUsers() {
         log.info("Получение всех пользователей");
         return userService.getAllUsers();
     }
 
+    @GetMapping(params = {"ids", "!limit", "!after"})
+    public List<User> getUsersByIds(@RequestParam List<Integer> ids) {
+        log.info("Получение пользователей по списку id, количество: {}", ids.size());
+        return userService.getUsersByIds(ids);
+    }
+
+    // Без limit (after без limit, ids вместе с limit) не подходит ни один обработчик, и запрос получает 400
+    @GetMapping(params = {"limit", "!ids"})
+    public CursorPage<User> getUsersPage(@RequestParam(required = false) Integer after, @RequestParam int limit) {
+        log.info("Получение страницы пользователей после id {} размером {}", after, limit);
+        return userService.getUsersPage(after, limit);
+    }
+
     @GetMapping("/{id}")
-    public User getUserById(@PathVariable Integer id) {
-        log.info("Получение пользователя с id {}", id);
+    public User getUserById(@PathVariable Integer id, WebRequest request) {
+        log.debug("Получение пользователя с id {}", id);
+        EntityVersions.Version version = versions.user(id);
+        if (request.checkNotModified(versions.etag("user-" + id, version), version.modifiedAt())) {
+            return null;
+        }
         return userService.getUserById(id);
     }
 
@@ -62,4 +87,16 @@ public class UserController {
     public Collection<User> getCommonFriends(@PathVariable Integer userId, @PathVariable Integer otherId) {
         return userService.getCommonFriends(userId, otherId);
     }
+
+    @GetMapping("/{userId}/friends/suggestions")
+    public List<User> getFriendSuggestions(@PathVariable Integer userId, @RequestParam(defaultValue = "10") int limit) {
+        log.info("Получение рекомендаций друзей для пользователя с ID: {}", userId);
+        return userService.getFriendSuggestions(userId, limit);
+    }
+
+    @GetMapping("/{userId}/recommendations")
+    public List<Film> getRecommendations(@PathVariable Integer userId, @RequestParam(defaultValue = "10") int limit) {
+        log.info("Получение рекомендаций фильмов для пользователя с ID: {}", userId);
+        return filmService.getRecommendations(userId, limit);
+    }
 }
@@ -0,0 +1,92 @@
+package ru.yandex.practicum.filmorate.dao;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.Change;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Таблица change_log: хранилища дописывают в неё изменения в своей транзакции,
+ * а {@link ru.yandex.practicum.filmorate.service.ChangeLogPoller} читает чужие изменения по возрастанию seq.
+ * Каждый экземпляр приложения помечает свои записи случайным nodeId.
+ */
+@Component
+public class ChangeLog {
+    private static final String SQL_APPEND = "INSERT INTO change_log (node_id, kind, entity_id, related_id) VALUES (?, ?, ?, ?)";
+    private static final String SQL_READ = "SELECT seq, node_id, kind, entity_id, related_id FROM change_log";
+    private static final RowMapper<Change> CHANGE_MAPPER = (rs, rowNum) -> new Change(
+            rs.getLong("seq"),
+            rs.getString("node_id"),
+            Change.Kind.valueOf(rs.getString("kind")),
+            rs.getInt("entity_id"),
+            rs.getObject("related_id", Integer.class));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    public ChangeLog(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public void append(Change.Kind kind, int entityId) {
+        append(kind, entityId, null);
+    }
+
+    public void append(Change.Kind kind, int entityId, Integer relatedId) {
+        jdbcTemplate.update(SQL_APPEND, nodeId, kind.name(), entityId, relatedId);
+    }
+
+    /**
+     * Пакетная запись однотипных изменений, например всех лайков одной пачки.
+     */
+    public <T> void appendAll(Change.Kind kind, Collection<T> items, ToIntFunction<T> entityId,
+                              Function<T, Integer> relatedId) {
+        if (items.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(SQL_APPEND, items.stream()
+                .map(item -> new Object[]{nodeId, kind.name(), entityId.applyAsInt(item), relatedId.apply(item)})
+                .collect(Collectors.toList()));
+    }
+
+    public long lastSeq() {
+        Long seq = jdbcTemplate.queryForObject("SELECT MAX(seq) FROM change_log", Long.class);
+        return seq != null ? seq : 0;
+    }
+
+    /**
+     * Следующие изменения после seq, диапазонное чтение по первичному ключу.
+     */
+    public List<Change> readAfter(long seq, int limit) {
+        return jdbcTemplate.query(SQL_READ + " WHERE seq > ? ORDER BY seq LIMIT ?", CHANGE_MAPPER, seq, limit);
+    }
+
+    /**
+     * Изменения с указанными seq: так перечитываются пропуски, транзакции которых ещё не были зафиксированы.
+     */
+    public List<Change> readSeqs(Collection<Long> seqs) {
+        if (seqs.isEmpty()) {
+            return List.of();
+        }
+        String sql = SQL_READ + " WHERE seq IN (" + seqs.stream().map(seq -> "?").collect(Collectors.joining(", "))
+                + ") ORDER BY seq";
+        return jdbcTemplate.query(sql, CHANGE_MAPPER, seqs.toArray());
+    }
+
+    public int deleteOlderThan(Instant threshold) {
+        return jdbcTemplate.update("DELETE FROM change_log WHERE created_at < ?", Timestamp.from(threshold));
+    }
+}
@@ -0,0 +1,113 @@
+package ru.yandex.practicum.filmorate.dao;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Friendship;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.ExportStorage;
+
+import java.sql.Date;
+import java.util.LinkedHashSet;
+import java.util.function.Consumer;
+
+/**
+ * Потоковая выгрузка таблиц: строки читаются однонаправленным курсором с ограниченным fetch size
+ * и сразу передаются потребителю, ничего не накапливая в памяти приложения.
+ * <p>
+ * Читает ли драйвер результат порциями, зависит от базы. PostgreSQL использует fetch size только
+ * при выключенном autocommit, его выключает транзакция ниже. MySQL требует {@code useCursorFetch=true}
+ * в URL. H2 fetch size не учитывает: результат целиком строится до первой строки,
+ * большие выборки он сбрасывает во временный файл, так что память ограничена, но выгрузка начинается
+ * только после выполнения запроса.
+ */
+@Component
+public class ExportDbStorage implements ExportStorage {
+    private static final int FETCH_SIZE = 1000;
+
+    private static final String SQL_EXPORT_FILMS = "SELECT f.*, fg.genre_id FROM films f " +
+            "LEFT JOIN film_genre fg ON f.film_id = fg.film_id " +
+            "ORDER BY f.film_id, fg.genre_id";
+    private static final String SQL_EXPORT_USERS = "SELECT * FROM users ORDER BY user_id";
+    private static final String SQL_EXPORT_LIKES = "SELECT film_id, user_id FROM film_likes";
+    private static final String SQL_EXPORT_FRIENDS = "SELECT user_id, friend_id FROM friends";
+
+    private final JdbcTemplate streamingTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ReferenceDataRegistry referenceData;
+
+    public ExportDbStorage(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                           ReferenceDataRegistry referenceData) {
+        this.streamingTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.streamingTemplate.setFetchSize(FETCH_SIZE);
+        // Курсор с fetch size в PostgreSQL работает только внутри транзакции
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.referenceData = referenceData;
+    }
+
+    @Override
+    public void exportFilms(Consumer<Film> consumer) {
+        readOnlyTransaction.executeWithoutResult(status -> {
+            Film[] current = new Film[1];
+            streamingTemplate.query(SQL_EXPORT_FILMS, rs -> {
+                int filmId = rs.getInt("film_id");
+                if (current[0] == null || current[0].getId() != filmId) {
+                    if (current[0] != null) {
+                        consumer.accept(current[0]);
+                    }
+                    Film film = new Film();
+                    film.setId(filmId);
+                    film.setName(rs.getString("name"));
+                    film.setDescription(rs.getString("description"));
+                    Date releaseDate = rs.getDate("release_date");
+                    film.setReleaseDate(releaseDate == null ? null : releaseDate.toLocalDate());
+                    film.setDuration(rs.getLong("duration"));
+                    int mpaId = rs.getInt("mpa_id");
+                    film.setMpa(referenceData.getMpa(mpaId).orElseGet(() -> new Mpa(mpaId, null)));
+                    film.setGenres(new LinkedHashSet<>());
+                    current[0] = film;
+                }
+                int genreId = rs.getInt("genre_id");
+                if (!rs.wasNull()) {
+                    current[0].getGenres().add(referenceData.getGenre(genreId).orElseGet(() -> new Genre(genreId, null)));
+                }
+            });
+            if (current[0] != null) {
+                consumer.accept(current[0]);
+            }
+        });
+    }
+
+    @Override
+    public void exportUsers(Consumer<User> consumer) {
+        readOnlyTransaction.executeWithoutResult(status -> streamingTemplate.query(SQL_EXPORT_USERS, rs -> {
+            User user = new User();
+            user.setId(rs.getInt("user_id"));
+            user.setEmail(rs.getString("email"));
+            user.setLogin(rs.getString("login"));
+            user.setName(rs.getString("name"));
+            user.setBirthday(rs.getDate("birthday").toLocalDate());
+            consumer.accept(user);
+        }));
+    }
+
+    @Override
+    public void exportLikes(Consumer<Like> consumer) {
+        readOnlyTransaction.executeWithoutResult(status -> streamingTemplate.query(SQL_EXPORT_LIKES, rs -> {
+            consumer.accept(new Like(rs.getLong("film_id"), rs.getLong("user_id")));
+        }));
+    }
+
+    @Override
+    public void exportFriendships(Consumer<Friendship> consumer) {
+        readOnlyTransaction.executeWithoutResult(status -> streamingTemplate.query(SQL_EXPORT_FRIENDS, rs -> {
+            consumer.accept(new Friendship(rs.getInt("user_id"), rs.getInt("friend_id")));
+        }));
+    }
+}
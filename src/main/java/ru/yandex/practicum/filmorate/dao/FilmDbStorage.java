@@ -1,32 +1,103 @@
 package ru.yandex.practicum.filmorate.dao;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
-import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.routing.ReplicaRead;
+import ru.yandex.practicum.filmorate.routing.ReplicaRouting;
+import ru.yandex.practicum.filmorate.storage.Change;
+import ru.yandex.practicum.filmorate.storage.ChangeListener;
 import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.memory.EntityCache;
+import ru.yandex.practicum.filmorate.storage.memory.FilmLeaderboard;
+import ru.yandex.practicum.filmorate.storage.memory.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.storage.memory.LikeBitmapIndex;
 
 import java.sql.Date;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Statement;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Component
-public class FilmDbStorage implements FilmStorage {
+public class FilmDbStorage implements FilmStorage, ChangeListener {
+    private static final String SQL_INSERT_FILM = "INSERT INTO films (name, description, release_date, duration, mpa_id) VALUES (?, ?, ?, ?, ?)";
+    private static final String SQL_INSERT_FILM_GENRE = "INSERT INTO film_genre (film_id, genre_id) VALUES (?, ?)";
+    private static final String SQL_INSERT_LIKE = "INSERT INTO film_likes (user_id, film_id) VALUES (?, ?)";
+    // Пакетная видимость: планы запросов проверяет QueryPlanTest
+    static final String SQL_INSERT_LIKE_IF_ABSENT = "INSERT INTO film_likes (user_id, film_id) SELECT ?, ? " +
+            "WHERE NOT EXISTS (SELECT 1 FROM film_likes WHERE user_id = ? AND film_id = ?)";
+    static final String SQL_DELETE_LIKE = "DELETE FROM film_likes WHERE user_id = ? AND film_id = ?";
+    static final String SQL_ADJUST_LIKES_COUNT = "UPDATE films SET likes_count = likes_count + ? WHERE film_id = ?";
+    static final String SQL_REPAIR_LIKE_COUNTS = "UPDATE films f " +
+            "SET likes_count = (SELECT COUNT(*) FROM film_likes fl WHERE fl.film_id = f.film_id) " +
+            "WHERE likes_count <> (SELECT COUNT(*) FROM film_likes fl WHERE fl.film_id = f.film_id)";
+
     private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ReferenceDataRegistry referenceData;
+    private final FilmLeaderboard leaderboard = new FilmLeaderboard();
+    private final LikeBitmapIndex likeIndex = new LikeBitmapIndex();
+    private final FilmSearchIndex searchIndex = new FilmSearchIndex();
+    private final FilmGraphLoader graphLoader;
+    private final EntityCache<Film> filmCache;
+    private final ChangeLog changeLog;
+    /**
+     * Лайки меняются под блокировкой чтения до завершения транзакции, пересчёт счётчиков — под
+     * блокировкой записи. Иначе пересчёт прочитает уже зафиксированный лайк, а обработка того же
+     * лайка после фиксации прибавит его к рейтингу второй раз.
+     */
+    private final ReentrantReadWriteLock likeCountsLock = new ReentrantReadWriteLock();
 
-    public FilmDbStorage(JdbcTemplate jdbcTemplate) {
+    public FilmDbStorage(JdbcTemplate jdbcTemplate, ReferenceDataRegistry referenceData,
+                         TransactionTemplate transactionTemplate, ChangeLog changeLog,
+                         @Value("${filmorate.cache.films.maximum-size:10000}") long cacheSize,
+                         @Value("${filmorate.cache.films.expire-after-write:5m}") Duration cacheTtl,
+                         MeterRegistry meterRegistry, Optional<ReplicaRouting> replicaRouting) {
         this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.referenceData = referenceData;
+        this.graphLoader = new FilmGraphLoader(jdbcTemplate, referenceData);
+        this.filmCache = new EntityCache<>(cacheSize, cacheTtl, Film::getId);
+        this.changeLog = changeLog;
+        filmCache.bindTo(meterRegistry, "films");
+        // Реплика может отставать от основной базы, прочитанные с неё фильмы не кэшируются
+        replicaRouting.ifPresent(routing -> filmCache.skipPopulationWhen(routing::useReplica));
+        // Названия жанров и MPA в кэшированных фильмах берутся из справочников
+        referenceData.addReloadListener(filmCache::invalidateAll);
+    }
+
+    @PostConstruct
+    public void loadIndexes() {
+        leaderboard.ensureLoaded(this::loadLikeCounts, this::loadFacets);
+        likeIndex.ensureLoaded(sink -> jdbcTemplate.query("SELECT film_id, user_id FROM film_likes", rs -> {
+            sink.accept(rs.getInt("film_id"), rs.getInt("user_id"));
+        }));
+        searchIndex.ensureLoaded(sink -> jdbcTemplate.query("SELECT film_id, name, description FROM films", rs -> {
+            sink.accept(rs.getInt("film_id"), rs.getString("name"), rs.getString("description"));
+        }));
     }
 
     public Film addFilm(Film film) {
-        String sql = "INSERT INTO films (name, description, release_date, duration, mpa_id) VALUES (?, ?, ?, ?, ?)";
-        String genreSql = "INSERT INTO film_genre (film_id, genre_id) VALUES (?, ?)";
         KeyHolder keyHolder = new GeneratedKeyHolder();
 
         if (film.getName() == null || film.getDescription() == null || film.getReleaseDate() == null || film.getMpa() == null) {
@@ -35,141 +106,507 @@ public class FilmDbStorage implements FilmStorage {
         if (film.getName().isEmpty() || film.getDescription().isEmpty()) {
             throw new IllegalArgumentException("Название и описание фильма не могут быть пустыми.");
         }
+        validateMpa(film);
         validateGenres(film.getGenres());
 
+        loadIndexes();
+        transactionTemplate.executeWithoutResult(status -> {
+            try {
+                jdbcTemplate.update(connection -> {
+                    PreparedStatement ps = connection.prepareStatement(SQL_INSERT_FILM, Statement.RETURN_GENERATED_KEYS);
+                    setFilmParameters(ps, film);
+                    return ps;
+                }, keyHolder);
+            } catch (DataIntegrityViolationException e) {
+                throw new IllegalArgumentException("Невозможно добавить фильм: рейтинг MPA с ID " + film.getMpa().getId() + " не существует.", e);
+            }
+
+            // Получение ID созданного фильма
+            film.setId(Objects.requireNonNull(keyHolder.getKey()).intValue());
+
+            // Запросы внутри цикла заменены на конструкцию batchUpdate
+            List<Object[]> batchArgs = film.getGenres().stream()
+                    .map(genre -> new Object[]{film.getId(), genre.getId()})
+                    .collect(Collectors.toList());
+
+            jdbcTemplate.batchUpdate(SQL_INSERT_FILM_GENRE, batchArgs);
+            changeLog.append(Change.Kind.FILM_CREATED, film.getId());
+            AfterCommit.run(() -> {
+                leaderboard.addFilm(film.getId(), facetsOf(film));
+                searchIndex.put(film.getId(), film.getName(), film.getDescription());
+            });
+        });
+        return film;
+    }
+
+    /**
+     * Пакетная вставка уже проверенных фильмов: один batch по фильмам и один по жанрам.
+     */
+    @Override
+    public List<Film> addFilms(List<Film> films) {
+        loadIndexes();
+        transactionTemplate.executeWithoutResult(status -> insertFilms(films));
+        return films;
+    }
+
+    private void insertFilms(List<Film> films) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(SQL_INSERT_FILM, Statement.RETURN_GENERATED_KEYS)) {
+                for (Film film : films) {
+                    setFilmParameters(ps, film);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    for (Film film : films) {
+                        if (!keys.next()) {
+                            throw new IllegalStateException("Драйвер не вернул ключи для всех вставленных фильмов");
+                        }
+                        film.setId(keys.getInt(1));
+                    }
+                }
+            }
+            return null;
+        });
+
+        List<Object[]> genreArgs = films.stream()
+                .flatMap(film -> film.getGenres().stream().map(genre -> new Object[]{film.getId(), genre.getId()}))
+                .collect(Collectors.toList());
+        jdbcTemplate.batchUpdate(SQL_INSERT_FILM_GENRE, genreArgs);
+        changeLog.appendAll(Change.Kind.FILM_CREATED, films, Film::getId, film -> null);
+
+        AfterCommit.run(() -> {
+            films.forEach(film -> leaderboard.addFilm(film.getId(), facetsOf(film)));
+            searchIndex.putAll(sink -> films.forEach(film ->
+                    sink.accept(film.getId(), film.getName(), film.getDescription())));
+        });
+    }
+
+    @Override
+    public Set<Integer> findExistingFilmIds(Collection<Integer> ids) {
+        loadIndexes();
+        return ids.stream()
+                .filter(leaderboard::contains)
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Идемпотентная пакетная вставка лайков: уже существующие пары пропускаются.
+     */
+    @Override
+    public int addLikes(List<Like> likes) {
+        loadIndexes();
+        Set<Like> uniqueLikes = new LinkedHashSet<>(likes);
+        if (uniqueLikes.isEmpty()) {
+            return 0;
+        }
+        return Objects.requireNonNull(transactionTemplate.execute(status -> insertLikes(uniqueLikes)));
+    }
+
+    private int insertLikes(Set<Like> uniqueLikes) {
+        lockLikeCountsUntilCompletion();
+        String sql = "SELECT film_id, user_id FROM film_likes WHERE (user_id, film_id) IN (" +
+                uniqueLikes.stream().map(like -> "(?, ?)").collect(Collectors.joining(", ")) + ")";
+        Object[] args = uniqueLikes.stream()
+                .flatMap(like -> Stream.of(like.getUserId(), like.getFilmId()))
+                .toArray();
+        jdbcTemplate.query(sql, rs -> {
+            uniqueLikes.remove(new Like(rs.getLong("film_id"), rs.getLong("user_id")));
+        }, args);
+
+        List<Like> newLikes = new ArrayList<>(uniqueLikes);
+        jdbcTemplate.batchUpdate(SQL_INSERT_LIKE, newLikes.stream()
+                .map(like -> new Object[]{like.getUserId(), like.getFilmId()})
+                .collect(Collectors.toList()));
+        adjustLikeCounts(newLikes, 1);
+        changeLog.appendAll(Change.Kind.LIKE_ADDED, newLikes, like -> like.getFilmId().intValue(),
+                like -> like.getUserId().intValue());
+        newLikes.forEach(like -> evict(like.getFilmId().intValue()));
+
+        AfterCommit.run(() -> newLikes.forEach(like -> {
+            leaderboard.increment(like.getFilmId().intValue());
+            likeIndex.addLike(like.getFilmId().intValue(), like.getUserId().intValue());
+        }));
+        return newLikes.size();
+    }
+
+    @Override
+    public int removeLikes(List<Like> likes) {
+        loadIndexes();
+        List<Like> uniqueLikes = new ArrayList<>(new LinkedHashSet<>(likes));
+        return Objects.requireNonNull(transactionTemplate.execute(status -> deleteLikes(uniqueLikes)));
+    }
+
+    private int deleteLikes(List<Like> uniqueLikes) {
+        lockLikeCountsUntilCompletion();
+        int[] counts = jdbcTemplate.batchUpdate(SQL_DELETE_LIKE,
+                uniqueLikes.stream()
+                        .map(like -> new Object[]{like.getUserId(), like.getFilmId()})
+                        .collect(Collectors.toList()));
+
+        List<Like> removed = new ArrayList<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                removed.add(uniqueLikes.get(i));
+            }
+        }
+        adjustLikeCounts(removed, -1);
+        changeLog.appendAll(Change.Kind.LIKE_REMOVED, removed, like -> like.getFilmId().intValue(),
+                like -> like.getUserId().intValue());
+        removed.forEach(like -> evict(like.getFilmId().intValue()));
+        AfterCommit.run(() -> removed.forEach(like -> {
+            leaderboard.decrement(like.getFilmId().intValue());
+            likeIndex.removeLike(like.getFilmId().intValue(), like.getUserId().intValue());
+        }));
+        return removed.size();
+    }
+
+    /**
+     * Пересчитывает likes_count по film_likes там, где счётчик разошёлся с таблицей
+     * (например, после загрузки лайков в обход хранилища), и перезагружает рейтинг.
+     */
+    @Override
+    public int repairLikeCounts() {
+        if (likeCountsLock.getReadHoldCount() > 0) {
+            // Блокировку чтения нельзя повысить до записи: пересчёт ждал бы сам себя
+            throw new IllegalStateException("Пересчёт счётчиков лайков в транзакции, изменившей лайки");
+        }
+        likeCountsLock.writeLock().lock();
         try {
-            jdbcTemplate.update(connection -> {
-                PreparedStatement ps = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
-                ps.setString(1, film.getName());
-                ps.setString(2, film.getDescription());
-                ps.setDate(3, Date.valueOf(film.getReleaseDate()));
-                ps.setLong(4, film.getDuration());
-                ps.setInt(5, film.getMpa().getId());
-                return ps;
-            }, keyHolder);
-        } catch (DataIntegrityViolationException e) {
-            throw new IllegalArgumentException("Невозможно добавить фильм: рейтинг MPA с ID " + film.getMpa().getId() + " не существует.", e);
+            int repaired = Objects.requireNonNull(transactionTemplate.execute(status -> {
+                int updated = jdbcTemplate.update(SQL_REPAIR_LIKE_COUNTS);
+                if (updated > 0) {
+                    changeLog.append(Change.Kind.LIKES_REPAIRED, 0);
+                }
+                return updated;
+            }));
+            // Рейтинг перечитывается до снятия блокировки, пока новые лайки не могут зафиксироваться
+            leaderboard.reload(this::loadLikeCounts, this::loadFacets);
+            filmCache.invalidateAll();
+            return repaired;
+        } finally {
+            likeCountsLock.writeLock().unlock();
         }
+    }
 
-        // Получение ID созданного фильма
-        film.setId(Objects.requireNonNull(keyHolder.getKey()).intValue());
+    /**
+     * Берёт блокировку чтения до конца текущей транзакции: она снимается после того,
+     * как обработчики AfterCommit обновили рейтинг.
+     */
+    private void lockLikeCountsUntilCompletion() {
+        Lock lock = likeCountsLock.readLock();
+        lock.lock();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                lock.unlock();
+            }
+        });
+    }
 
-        // Запросы внутри цикла заменены на конструкцию batchUpdate
-        List<Object[]> batchArgs = film.getGenres().stream()
-                .map(genre -> new Object[]{film.getId(), genre.getId()})
-                .collect(Collectors.toList());
+    /**
+     * Сбрасывает фильм в кэше сразу и ещё раз после фиксации транзакции,
+     * чтобы параллельное чтение не успело закэшировать незафиксированное состояние.
+     */
+    private void evict(int filmId) {
+        filmCache.invalidate(filmId);
+        AfterCommit.run(() -> filmCache.invalidate(filmId));
+    }
 
-        jdbcTemplate.batchUpdate(genreSql, batchArgs);
+    private void adjustLikeCounts(List<Like> likes, int sign) {
+        Map<Long, Integer> deltas = new HashMap<>();
+        likes.forEach(like -> deltas.merge(like.getFilmId(), sign, Integer::sum));
+        jdbcTemplate.batchUpdate(SQL_ADJUST_LIKES_COUNT, deltas.entrySet().stream()
+                .map(entry -> new Object[]{entry.getValue(), entry.getKey()})
+                .collect(Collectors.toList()));
+    }
 
-        return film;
+    private void setFilmParameters(PreparedStatement ps, Film film) throws SQLException {
+        ps.setString(1, film.getName());
+        ps.setString(2, film.getDescription());
+        ps.setDate(3, Date.valueOf(film.getReleaseDate()));
+        ps.setLong(4, film.getDuration());
+        ps.setInt(5, film.getMpa().getId());
     }
 
     private void validateGenres(Set<Genre> genres) {
         if (genres.isEmpty()) return;
 
-        List<Integer> genreIds = genres.stream().map(Genre::getId).collect(Collectors.toList());
-        String sql = "SELECT genre_id FROM genres WHERE genre_id IN (" +
-                genreIds.stream().map(id -> "?").collect(Collectors.joining(", ")) + ")";
-
-        // Избавились от множественных запросов в цикле
-        Set<Integer> missingGenres = genreIds.stream()
-                .filter(id -> !jdbcTemplate.queryForList(sql, genreIds.toArray(), Integer.class).contains(id))
-                .collect(Collectors.toSet());
+        // Жанры проверяются по справочнику в памяти, без запросов к базе
+        List<Integer> missingGenres = referenceData.findMissingGenres(
+                genres.stream().map(Genre::getId).collect(Collectors.toList()));
 
         if (!missingGenres.isEmpty()) {
             throw new IllegalArgumentException("Отсутствующие жанры: " + missingGenres);
         }
     }
 
+    private void validateMpa(Film film) {
+        if (referenceData.getMpa(film.getMpaId()).isEmpty()) {
+            throw new IllegalArgumentException("Невозможно добавить фильм: рейтинг MPA с ID " + film.getMpaId() + " не существует.");
+        }
+    }
+
     @Override
     public Film updateFilm(Film film) {
         String sql = "UPDATE films SET name = ?, description = ?, release_date = ?, duration = ?, mpa_id = ? WHERE film_id = ?";
-        jdbcTemplate.update(sql, film.getName(), film.getDescription(), Date.valueOf(film.getReleaseDate()), film.getDuration(), film.getMpa().getId(), film.getId());
+        validateMpa(film);
+        loadIndexes();
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update(sql, film.getName(), film.getDescription(), Date.valueOf(film.getReleaseDate()), film.getDuration(), film.getMpa().getId(), film.getId());
+            changeLog.append(Change.Kind.FILM_UPDATED, film.getId());
+            // Жанры при обновлении не меняются, поэтому берутся из базы
+            Optional<FilmLeaderboard.Facets> facets = loadFacets(film.getId());
+            AfterCommit.run(() -> {
+                facets.ifPresent(updated -> leaderboard.updateFacets(film.getId(), updated));
+                searchIndex.put(film.getId(), film.getName(), film.getDescription());
+            });
+        });
+        evict(film.getId());
         return film;
     }
 
     @Override
     public void deleteFilm(int id) {
         String sql = "DELETE FROM films WHERE film_id = ?";
-        jdbcTemplate.update(sql, id);
+        loadIndexes();
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update(sql, id);
+            changeLog.append(Change.Kind.FILM_DELETED, id);
+            AfterCommit.run(() -> {
+                leaderboard.removeFilm(id);
+                likeIndex.removeFilm(id);
+                searchIndex.remove(id);
+            });
+        });
+        evict(id);
     }
 
     @Override
     public Optional<Film> getFilmById(int id) {
-        String sql = "SELECT * FROM films WHERE film_id = ?";
-        String genreSql = "SELECT g.genre_id, g.name FROM genres g " +
-                "JOIN film_genre fg ON g.genre_id = fg.genre_id " +
-                "WHERE fg.film_id = ?";
-
-        return jdbcTemplate.query(sql, new Object[]{id}, rs -> {
-            if (rs.next()) {
-                Film film = new Film();
-                film.setId(rs.getInt("film_id"));
-                film.setName(rs.getString("name"));
-                film.setDescription(rs.getString("description"));
-                film.setReleaseDate(rs.getDate("release_date").toLocalDate());
-                film.setDuration(rs.getLong("duration"));
-                film.setMpa(new Mpa(rs.getInt("mpa_id"), null));
-
-                List<Genre> genres = jdbcTemplate.query(genreSql, new Object[]{id}, (rsGenre, rowNum) -> {
-                    int genreId = rsGenre.getInt("genre_id");
-                    String genreName = rsGenre.getString("name");
-                    return new Genre(genreId, genreName);
-                });
+        loadIndexes();
+        return filmCache.getAll(List.of(id), graphLoader::load).stream().findFirst();
+    }
 
-                film.setGenres(new HashSet<>(genres));
-                return Optional.of(film);
-            }
-            return Optional.empty();
-        });
+    @Override
+    public List<Film> getFilmsByIds(Collection<Integer> ids) {
+        loadIndexes();
+        return filmCache.getAll(new ArrayList<>(ids), graphLoader::load);
     }
 
     @Override
+    @ReplicaRead
     public Collection<Film> getAllFilms() {
-        String sql = "SELECT * FROM films";
-        return jdbcTemplate.query(sql, (rs, rowNum) -> {
-            Film film = new Film();
-            film.setId(rs.getInt("film_id"));
-            film.setName(rs.getString("name"));
-            film.setDescription(rs.getString("description"));
-            film.setReleaseDate(rs.getDate("release_date").toLocalDate());
-            film.setDuration(rs.getInt("duration"));
-            film.setMpa(new Mpa(rs.getInt("mpa_id"), null));
-            return film;
-        });
+        loadIndexes();
+        return graphLoader.loadAll();
+    }
+
+    @Override
+    @ReplicaRead
+    public List<Film> getFilmsPage(int afterId, int limit) {
+        loadIndexes();
+        return graphLoader.loadPage(afterId, limit);
     }
 
     @Override
     public void addLike(Integer filmId, Integer userId) {
-        String sql = "INSERT INTO film_likes (user_id, film_id) VALUES (?, ?)";
-        jdbcTemplate.update(sql, userId, filmId);
+        loadIndexes();
+        boolean added;
+        try {
+            // Лайк и счётчик меняются в одной транзакции, повторный лайк ничего не меняет
+            added = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                lockLikeCountsUntilCompletion();
+                if (jdbcTemplate.update(SQL_INSERT_LIKE_IF_ABSENT, userId, filmId, userId, filmId) == 0) {
+                    return false;
+                }
+                jdbcTemplate.update(SQL_ADJUST_LIKES_COUNT, 1, filmId);
+                changeLog.append(Change.Kind.LIKE_ADDED, filmId, userId);
+                AfterCommit.run(() -> {
+                    leaderboard.increment(filmId);
+                    likeIndex.addLike(filmId, userId);
+                });
+                return true;
+            }));
+        } catch (DuplicateKeyException e) {
+            // Тот же лайк одновременно поставлен другим запросом
+            return;
+        }
+        if (added) {
+            evict(filmId);
+        }
     }
 
     @Override
     public void removeLike(Integer filmId, Integer userId) {
-        String sql = "DELETE FROM film_likes WHERE user_id = ? AND film_id = ?";
-        jdbcTemplate.update(sql, userId, filmId);
+        loadIndexes();
+        boolean removed = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            lockLikeCountsUntilCompletion();
+            if (jdbcTemplate.update(SQL_DELETE_LIKE, userId, filmId) == 0) {
+                return false;
+            }
+            jdbcTemplate.update(SQL_ADJUST_LIKES_COUNT, -1, filmId);
+            changeLog.append(Change.Kind.LIKE_REMOVED, filmId, userId);
+            AfterCommit.run(() -> {
+                leaderboard.decrement(filmId);
+                likeIndex.removeLike(filmId, userId);
+            });
+            return true;
+        }));
+        if (removed) {
+            evict(filmId);
+        }
     }
 
     @Override
+    @ReplicaRead
     public List<Film> getTopFilms(int count) {
-        String sql = "SELECT f.*, m.rating_mpa_id AS mpa_id, m.name AS mpa_name, COUNT(fl.user_id) AS likes_count " +
-                "FROM films f " +
-                "LEFT JOIN film_likes fl ON f.film_id = fl.film_id " +
-                "JOIN MPA m ON f.mpa_id = m.rating_mpa_id " +
-                "GROUP BY f.film_id, m.rating_mpa_id, m.name " +
-                "ORDER BY likes_count DESC " +
-                "LIMIT ?";
-
-        return jdbcTemplate.query(sql, new Object[]{count}, (rs, rowNum) -> {
-            Film film = new Film();
-            film.setId(rs.getInt("film_id"));
-            film.setName(rs.getString("name"));
-            film.setDescription(rs.getString("description"));
-            film.setReleaseDate(rs.getDate("release_date").toLocalDate());
-            film.setDuration(rs.getLong("duration"));
-            film.setMpa(new Mpa(rs.getInt("mpa_id"), rs.getString("mpa_name")));
-            return film;
+        loadIndexes();
+        List<Integer> topIds = leaderboard.top(count);
+        // Рейтинг хранится в памяти, из базы читаются только строки фильмов по первичному ключу
+        return filmCache.getAll(topIds, graphLoader::load);
+    }
+
+    @Override
+    @ReplicaRead
+    public List<Film> getPopularFilms(int count, Integer genreId, Integer year, Integer mpaId) {
+        loadIndexes();
+        // Отбор идёт по рейтингам жанра, года и MPA в памяти, без соединения film_likes и film_genre
+        return filmCache.getAll(leaderboard.top(count, genreId, year, mpaId), graphLoader::load);
+    }
+
+    @Override
+    @ReplicaRead
+    public List<Film> searchFilms(String query, int limit, double popularityWeight) {
+        loadIndexes();
+        int[] filmIds = searchIndex.search(query, limit, leaderboard::getLikes, popularityWeight);
+        return filmCache.getAll(Arrays.stream(filmIds).boxed().collect(Collectors.toList()), graphLoader::load);
+    }
+
+    @Override
+    public List<Film> getRecommendations(int userId, int limit) {
+        loadIndexes();
+        int[] filmIds = likeIndex.recommend(userId, limit);
+        return filmCache.getAll(Arrays.stream(filmIds).boxed().collect(Collectors.toList()), graphLoader::load);
+    }
+
+    /**
+     * Применяет изменения других экземпляров к рейтингу, индексу лайков и кэшу фильмов.
+     * Новый фильм попадает в рейтинг со счётчиком из базы: его лайки могли прийти раньше записи о создании
+     * и были пропущены рейтингом. Лайки фильмов, созданных в той же пачке, в этот счётчик уже входят.
+     */
+    @Override
+    public void onChanges(List<Change> changes) {
+        loadIndexes();
+        Set<Integer> createdFilmIds = changes.stream()
+                .filter(change -> change.kind() == Change.Kind.FILM_CREATED)
+                .map(Change::entityId)
+                .collect(Collectors.toSet());
+        for (Change change : changes) {
+            int filmId = change.entityId();
+            boolean counted = createdFilmIds.contains(filmId);
+            switch (change.kind()) {
+                case FILM_CREATED -> {
+                    loadLeaderboardEntry(filmId);
+                    reindexText(filmId);
+                }
+                case FILM_UPDATED -> {
+                    loadFacets(filmId).ifPresent(facets -> leaderboard.updateFacets(filmId, facets));
+                    reindexText(filmId);
+                    filmCache.invalidate(filmId);
+                }
+                case FILM_DELETED -> {
+                    leaderboard.removeFilm(filmId);
+                    likeIndex.removeFilm(filmId);
+                    searchIndex.remove(filmId);
+                    filmCache.invalidate(filmId);
+                }
+                case LIKE_ADDED -> {
+                    if (!counted) {
+                        leaderboard.increment(filmId);
+                    }
+                    likeIndex.addLike(filmId, change.relatedId());
+                    filmCache.invalidate(filmId);
+                }
+                case LIKE_REMOVED -> {
+                    if (!counted) {
+                        leaderboard.decrement(filmId);
+                    }
+                    likeIndex.removeLike(filmId, change.relatedId());
+                    filmCache.invalidate(filmId);
+                }
+                case LIKES_REPAIRED -> {
+                    likeCountsLock.writeLock().lock();
+                    try {
+                        leaderboard.reload(this::loadLikeCounts, this::loadFacets);
+                    } finally {
+                        likeCountsLock.writeLock().unlock();
+                    }
+                    filmCache.invalidateAll();
+                }
+                default -> {
+                }
+            }
+        }
+    }
+
+    private Map<Integer, Long> loadLikeCounts() {
+        String sql = "SELECT film_id, likes_count FROM films";
+        Map<Integer, Long> likesByFilm = new HashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            likesByFilm.put(rs.getInt("film_id"), rs.getLong("likes_count"));
+        });
+        return likesByFilm;
+    }
+
+    private Map<Integer, FilmLeaderboard.Facets> loadFacets() {
+        Map<Integer, List<Integer>> genresByFilm = new HashMap<>();
+        jdbcTemplate.query("SELECT film_id, genre_id FROM film_genre", rs -> {
+            genresByFilm.computeIfAbsent(rs.getInt("film_id"), id -> new ArrayList<>()).add(rs.getInt("genre_id"));
+        });
+        Map<Integer, FilmLeaderboard.Facets> facets = new HashMap<>();
+        jdbcTemplate.query("SELECT film_id, release_date, mpa_id FROM films", rs -> {
+            int filmId = rs.getInt("film_id");
+            int[] genreIds = genresByFilm.getOrDefault(filmId, List.of()).stream().mapToInt(Integer::intValue).toArray();
+            facets.put(filmId, new FilmLeaderboard.Facets(yearOf(rs.getDate("release_date")),
+                    rs.getInt("mpa_id"), genreIds));
         });
+        return facets;
+    }
+
+    private void reindexText(int filmId) {
+        jdbcTemplate.query("SELECT name, description FROM films WHERE film_id = ?",
+                rs -> {
+                    searchIndex.put(filmId, rs.getString("name"), rs.getString("description"));
+                }, filmId);
+    }
+
+    /**
+     * Добавляет фильм в рейтинг или заменяет его запись счётчиком и признаками из базы.
+     * Удалённый фильм в рейтинг не возвращается.
+     */
+    private void loadLeaderboardEntry(int filmId) {
+        List<Long> likes = jdbcTemplate.queryForList("SELECT likes_count FROM films WHERE film_id = ?", Long.class, filmId);
+        if (!likes.isEmpty()) {
+            loadFacets(filmId).ifPresent(facets -> leaderboard.putFilm(filmId, likes.get(0), facets));
+        }
+    }
+
+    private Optional<FilmLeaderboard.Facets> loadFacets(int filmId) {
+        List<FilmLeaderboard.Facets> facets = jdbcTemplate.query("SELECT release_date, mpa_id FROM films WHERE film_id = ?",
+                (rs, rowNum) -> new FilmLeaderboard.Facets(yearOf(rs.getDate("release_date")),
+                        rs.getInt("mpa_id"),
+                        jdbcTemplate.queryForList("SELECT genre_id FROM film_genre WHERE film_id = ?", Integer.class,
+                                filmId).stream().mapToInt(Integer::intValue).toArray()), filmId);
+        return facets.stream().findFirst();
+    }
+
+    private static FilmLeaderboard.Facets facetsOf(Film film) {
+        Integer year = film.getReleaseDate() != null ? film.getReleaseDate().getYear() : null;
+        return new FilmLeaderboard.Facets(year, film.getMpaId(),
+                film.getGenres().stream().mapToInt(Genre::getId).toArray());
+    }
+
+    private static Integer yearOf(Date releaseDate) {
+        return releaseDate != null ? releaseDate.toLocalDate().getYear() : null;
     }
-}
\ No newline at end of file
+}
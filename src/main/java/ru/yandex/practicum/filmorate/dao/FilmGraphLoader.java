@@ -0,0 +1,115 @@
+package ru.yandex.practicum.filmorate.dao;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Собирает полные объекты фильмов (MPA, жанры, количество лайков из films.likes_count) фиксированным числом запросов:
+ * один запрос по фильмам и один по жанрам на каждую пачку идентификаторов.
+ * Названия жанров и MPA берутся из справочника в памяти.
+ */
+class FilmGraphLoader {
+    private static final int CHUNK_SIZE = 1000;
+
+    // Пакетная видимость: планы запросов проверяет QueryPlanTest
+    static final String SQL_FILMS = "SELECT * FROM films f";
+    static final String SQL_FILMS_PAGE = SQL_FILMS + " WHERE f.film_id > ? ORDER BY f.film_id LIMIT ?";
+    static final String SQL_GENRES = "SELECT fg.film_id, fg.genre_id FROM film_genre fg";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ReferenceDataRegistry referenceData;
+
+    FilmGraphLoader(JdbcTemplate jdbcTemplate, ReferenceDataRegistry referenceData) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.referenceData = referenceData;
+    }
+
+    List<Film> loadAll() {
+        Map<Integer, Film> films = new LinkedHashMap<>();
+        jdbcTemplate.query(SQL_FILMS + " ORDER BY f.film_id", rs -> {
+            Film film = mapFilm(rs);
+            films.put(film.getId(), film);
+        });
+        jdbcTemplate.query(SQL_GENRES + " ORDER BY fg.film_id, fg.genre_id", rs -> {
+            addGenre(films, rs);
+        });
+        return new ArrayList<>(films.values());
+    }
+
+    /**
+     * Возвращает фильмы в порядке переданных идентификаторов, несуществующие идентификаторы пропускаются.
+     */
+    List<Film> load(List<Integer> filmIds) {
+        Map<Integer, Film> films = new HashMap<>();
+        for (int from = 0; from < filmIds.size(); from += CHUNK_SIZE) {
+            List<Integer> chunk = filmIds.subList(from, Math.min(from + CHUNK_SIZE, filmIds.size()));
+            jdbcTemplate.query(SQL_FILMS + " WHERE f.film_id IN (" + placeholders(chunk) + ")", rs -> {
+                Film film = mapFilm(rs);
+                films.put(film.getId(), film);
+            }, chunk.toArray());
+        }
+        loadGenres(films);
+        return filmIds.stream()
+                .map(films::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Страница фильмов с id больше курсора: диапазонное чтение по первичному ключу.
+     */
+    List<Film> loadPage(int afterId, int limit) {
+        Map<Integer, Film> films = new LinkedHashMap<>();
+        jdbcTemplate.query(SQL_FILMS_PAGE, rs -> {
+            Film film = mapFilm(rs);
+            films.put(film.getId(), film);
+        }, afterId, limit);
+        loadGenres(films);
+        return new ArrayList<>(films.values());
+    }
+
+    private void loadGenres(Map<Integer, Film> films) {
+        List<Integer> filmIds = new ArrayList<>(films.keySet());
+        for (int from = 0; from < filmIds.size(); from += CHUNK_SIZE) {
+            List<Integer> chunk = filmIds.subList(from, Math.min(from + CHUNK_SIZE, filmIds.size()));
+            jdbcTemplate.query(SQL_GENRES + " WHERE fg.film_id IN (" + placeholders(chunk) + ") ORDER BY fg.genre_id", rs -> {
+                addGenre(films, rs);
+            }, chunk.toArray());
+        }
+    }
+
+    private static String placeholders(List<Integer> ids) {
+        return ids.stream().map(id -> "?").collect(Collectors.joining(", "));
+    }
+
+    private Film mapFilm(ResultSet rs) throws SQLException {
+        Film film = new Film();
+        film.setId(rs.getInt("film_id"));
+        film.setName(rs.getString("name"));
+        film.setDescription(rs.getString("description"));
+        Date releaseDate = rs.getDate("release_date");
+        film.setReleaseDate(releaseDate != null ? releaseDate.toLocalDate() : null);
+        film.setDuration(rs.getLong("duration"));
+        int mpaId = rs.getInt("mpa_id");
+        film.setMpa(referenceData.getMpa(mpaId).orElseGet(() -> new Mpa(mpaId, null)));
+        film.setGenres(new LinkedHashSet<>());
+        film.setLikesCount(rs.getLong("likes_count"));
+        return film;
+    }
+
+    private void addGenre(Map<Integer, Film> films, ResultSet rs) throws SQLException {
+        Film film = films.get(rs.getInt("film_id"));
+        if (film != null) {
+            int genreId = rs.getInt("genre_id");
+            film.getGenres().add(referenceData.getGenre(genreId).orElseGet(() -> new Genre(genreId, null)));
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package ru.yandex.practicum.filmorate.dao;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.Change;
+import ru.yandex.practicum.filmorate.storage.ChangeListener;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Справочники жанров и рейтингов MPA, загруженные в память в массивы с индексом по id.
+ * Данные меняются только через {@link #reload()}, читатели всегда видят согласованный снимок.
+ */
+@Slf4j
+@Component
+public class ReferenceDataRegistry implements ChangeListener {
+    private static final String SQL_GET_ALL_GENRES = "SELECT genre_id, name FROM genres ORDER BY genre_id";
+    private static final String SQL_GET_ALL_MPA = "SELECT rating_mpa_id, name FROM MPA ORDER BY rating_mpa_id";
+
+    private final JdbcTemplate jdbcTemplate;
+    // Не synchronized: виртуальный поток, ждущий JDBC внутри монитора, блокирует поток-носитель
+    private final Lock reloadLock = new ReentrantLock();
+    private final List<Runnable> reloadListeners = new CopyOnWriteArrayList<>();
+    private volatile Snapshot snapshot;
+
+    public ReferenceDataRegistry(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void reload() {
+        reloadLock.lock();
+        try {
+            List<Genre> genres = jdbcTemplate.query(SQL_GET_ALL_GENRES,
+                    (rs, rowNum) -> new Genre(rs.getInt("genre_id"), rs.getString("name")));
+            List<Mpa> mpa = jdbcTemplate.query(SQL_GET_ALL_MPA,
+                    (rs, rowNum) -> new Mpa(rs.getInt("rating_mpa_id"), rs.getString("name")));
+
+            Genre[] genresById = new Genre[genres.stream().mapToInt(Genre::getId).max().orElse(0) + 1];
+            genres.forEach(genre -> genresById[genre.getId()] = genre);
+            Mpa[] mpaById = new Mpa[mpa.stream().mapToInt(Mpa::getId).max().orElse(0) + 1];
+            mpa.forEach(rating -> mpaById[rating.getId()] = rating);
+
+            snapshot = new Snapshot(genresById, List.copyOf(genres), mpaById, List.copyOf(mpa));
+            log.info("Справочники загружены: жанров {}, рейтингов MPA {}", genres.size(), mpa.size());
+        } finally {
+            reloadLock.unlock();
+        }
+        reloadListeners.forEach(Runnable::run);
+    }
+
+    /**
+     * Действие после каждой перезагрузки справочников, например сброс кэшей с названиями жанров и MPA.
+     */
+    public void addReloadListener(Runnable listener) {
+        reloadListeners.add(listener);
+    }
+
+    /**
+     * Справочники перезагружены на другом экземпляре.
+     */
+    @Override
+    public void onChanges(List<Change> changes) {
+        if (changes.stream().anyMatch(change -> change.kind() == Change.Kind.REFERENCE_RELOADED)) {
+            reload();
+        }
+    }
+
+    public Optional<Genre> getGenre(Integer id) {
+        return Optional.ofNullable(find(getSnapshot().genresById(), id));
+    }
+
+    public List<Genre> getAllGenres() {
+        return getSnapshot().genres();
+    }
+
+    public Optional<Mpa> getMpa(Integer id) {
+        return Optional.ofNullable(find(getSnapshot().mpaById(), id));
+    }
+
+    public List<Mpa> getAllMpa() {
+        return getSnapshot().mpa();
+    }
+
+    public List<Integer> findMissingGenres(List<Integer> genreIds) {
+        Genre[] genresById = getSnapshot().genresById();
+        return genreIds.stream()
+                .filter(id -> find(genresById, id) == null)
+                .distinct()
+                .toList();
+    }
+
+    private Snapshot getSnapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            reload();
+            current = snapshot;
+        }
+        return current;
+    }
+
+    private static <T> T find(T[] byId, Integer id) {
+        if (id == null || id < 0 || id >= byId.length) {
+            return null;
+        }
+        return byId[id];
+    }
+
+    private record Snapshot(Genre[] genresById, List<Genre> genres, Mpa[] mpaById, List<Mpa> mpa) {
+    }
+}
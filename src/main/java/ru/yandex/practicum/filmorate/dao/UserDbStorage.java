@@ -1,133 +1,397 @@
 package ru.yandex.practicum.filmorate.dao;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.model.Friendship;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.routing.ReplicaRead;
+import ru.yandex.practicum.filmorate.routing.ReplicaRouting;
+import ru.yandex.practicum.filmorate.storage.Change;
+import ru.yandex.practicum.filmorate.storage.ChangeListener;
 import ru.yandex.practicum.filmorate.storage.UserStorage;
+import ru.yandex.practicum.filmorate.storage.memory.EntityCache;
+import ru.yandex.practicum.filmorate.storage.memory.FriendGraph;
+import ru.yandex.practicum.filmorate.storage.memory.FriendSuggestions;
 import org.springframework.stereotype.Component;
 
 import java.sql.Date;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Component
 @Primary
-public class UserDbStorage implements UserStorage {
+public class UserDbStorage implements UserStorage, ChangeListener {
     private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ChangeLog changeLog;
+    private final FriendGraph friendGraph = new FriendGraph();
+    private final FriendSuggestions friendSuggestions = new FriendSuggestions(friendGraph);
+    private final EntityCache<User> userCache;
+
+    // Размер пачки идентификаторов для запросов с IN
+    private static final int CHUNK_SIZE = 1000;
 
     // Статические переменные для SQL-команд
     private static final String SQL_INSERT_USER = "INSERT INTO users (email, login, name, birthday) VALUES (?, ?, ?, ?)";
-    private static final String SQL_UPDATE_USER = "UPDATE users SET name = ?, email = ?, login = ?, birthday = ? WHERE user_id = ?";
-    private static final String SQL_DELETE_USER = "DELETE FROM users WHERE user_id = ?";
-    private static final String SQL_GET_USER = "SELECT * FROM users WHERE user_id = ?";
+    // Пакетная видимость: планы запросов проверяет QueryPlanTest
+    static final String SQL_UPDATE_USER = "UPDATE users SET name = ?, email = ?, login = ?, birthday = ? WHERE user_id = ?";
+    static final String SQL_DELETE_USER = "DELETE FROM users WHERE user_id = ?";
+    static final String SQL_GET_USER = "SELECT * FROM users WHERE user_id = ?";
     private static final String SQL_GET_ALL_USERS = "SELECT * FROM users";
+    static final String SQL_GET_USERS_PAGE = "SELECT * FROM users WHERE user_id > ? ORDER BY user_id LIMIT ?";
     private static final String SQL_INSERT_FRIEND = "INSERT INTO friends (user_id, friend_id) VALUES (?, ?)";
-    private static final String SQL_GET_FRIENDS = "SELECT friend_id FROM friends WHERE user_id = ?";
+    static final String SQL_DELETE_FRIEND = "DELETE FROM friends WHERE user_id = ? AND friend_id = ?";
+    private static final String SQL_GET_ALL_FRIENDS = "SELECT user_id, friend_id FROM friends ORDER BY user_id, friend_id";
 
-    public UserDbStorage(JdbcTemplate jdbcTemplate) {
+    public UserDbStorage(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, ChangeLog changeLog,
+                         @Value("${filmorate.cache.users.maximum-size:10000}") long cacheSize,
+                         @Value("${filmorate.cache.users.expire-after-write:5m}") Duration cacheTtl,
+                         MeterRegistry meterRegistry, Optional<ReplicaRouting> replicaRouting) {
         this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.changeLog = changeLog;
+        this.userCache = new EntityCache<>(cacheSize, cacheTtl, User::getId);
+        userCache.bindTo(meterRegistry, "users");
+        // Реплика может отставать от основной базы, прочитанные с неё пользователи не кэшируются
+        replicaRouting.ifPresent(routing -> userCache.skipPopulationWhen(routing::useReplica));
+    }
+
+    @PostConstruct
+    public void loadFriendGraph() {
+        friendGraph.ensureLoaded(this::loadAdjacency);
     }
 
     @Override
     public User addUser(User user) {
         KeyHolder keyHolder = new GeneratedKeyHolder();
 
-        jdbcTemplate.update(connection -> {
-            PreparedStatement ps = connection.prepareStatement(SQL_INSERT_USER, Statement.RETURN_GENERATED_KEYS);
-            ps.setString(1, user.getEmail());
-            ps.setString(2, user.getLogin());
-            ps.setString(3, user.getName());
-            ps.setDate(4, Date.valueOf(user.getBirthday()));
-            return ps;
-        }, keyHolder);
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update(connection -> {
+                PreparedStatement ps = connection.prepareStatement(SQL_INSERT_USER, Statement.RETURN_GENERATED_KEYS);
+                ps.setString(1, user.getEmail());
+                ps.setString(2, user.getLogin());
+                ps.setString(3, user.getName());
+                ps.setDate(4, Date.valueOf(user.getBirthday()));
+                return ps;
+            }, keyHolder);
 
-        int generatedId = keyHolder.getKey().intValue();
-        user.setId(generatedId);
+            int generatedId = keyHolder.getKey().intValue();
+            user.setId(generatedId);
+            changeLog.append(Change.Kind.USER_CREATED, generatedId);
+        });
 
         return user;
     }
 
+    @Override
+    public List<User> addUsers(List<User> users) {
+        transactionTemplate.executeWithoutResult(status -> insertUsers(users));
+        return users;
+    }
+
+    private void insertUsers(List<User> users) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(SQL_INSERT_USER, Statement.RETURN_GENERATED_KEYS)) {
+                for (User user : users) {
+                    ps.setString(1, user.getEmail());
+                    ps.setString(2, user.getLogin());
+                    ps.setString(3, user.getName());
+                    ps.setDate(4, Date.valueOf(user.getBirthday()));
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    for (User user : users) {
+                        if (!keys.next()) {
+                            throw new IllegalStateException("Драйвер не вернул ключи для всех вставленных пользователей");
+                        }
+                        user.setId(keys.getInt(1));
+                    }
+                }
+            }
+            return null;
+        });
+        changeLog.appendAll(Change.Kind.USER_CREATED, users, User::getId, user -> null);
+    }
+
     @Override
     public User updateUser(User user) {
-        jdbcTemplate.update(SQL_UPDATE_USER, user.getName(), user.getEmail(), user.getLogin(), user.getBirthday(), user.getId());
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update(SQL_UPDATE_USER, user.getName(), user.getEmail(), user.getLogin(), user.getBirthday(), user.getId());
+            changeLog.append(Change.Kind.USER_UPDATED, user.getId());
+        });
+        evict(user.getId());
         return user;
     }
 
     @Override
     public void deleteUser(Integer id) {
-        jdbcTemplate.update(SQL_DELETE_USER, id);
+        loadFriendGraph();
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update(SQL_DELETE_USER, id);
+            changeLog.append(Change.Kind.USER_DELETED, id);
+            AfterCommit.run(() -> friendGraph.removeUser(id));
+        });
+        evict(id);
     }
 
     @Override
     public Optional<User> getUserById(Integer id) {
-        return jdbcTemplate.query(SQL_GET_USER, new Object[]{id}, rs -> {
-            if (rs.next()) {
-                User user = new User();
-                user.setId(rs.getInt("user_id"));
-                user.setEmail(rs.getString("email"));
-                user.setLogin(rs.getString("login"));
-                user.setName(rs.getString("name"));
-                user.setBirthday(rs.getDate("birthday").toLocalDate());
-                return Optional.of(user);
-            }
-            return Optional.empty();
-        });
+        return userCache.getAll(List.of(id), ids -> jdbcTemplate.query(SQL_GET_USER, (rs, rowNum) -> mapUser(rs), id))
+                .stream()
+                .findFirst();
     }
 
     @Override
+    @ReplicaRead
     public List<User> getAllUsers() {
-        return jdbcTemplate.query(SQL_GET_ALL_USERS, (rs, rowNum) -> {
-            User user = new User();
-            user.setId(rs.getInt("user_id"));
-            user.setEmail(rs.getString("email"));
-            user.setLogin(rs.getString("login"));
-            user.setName(rs.getString("name"));
-            user.setBirthday(rs.getDate("birthday").toLocalDate());
-            return user;
-        });
+        return jdbcTemplate.query(SQL_GET_ALL_USERS, (rs, rowNum) -> mapUser(rs));
+    }
+
+    @Override
+    @ReplicaRead
+    public List<User> getUsersPage(int afterId, int limit) {
+        return jdbcTemplate.query(SQL_GET_USERS_PAGE, (rs, rowNum) -> mapUser(rs), afterId, limit);
     }
 
     @Override
     public void addFriend(Integer userId, Integer friendId) {
-        jdbcTemplate.update(SQL_INSERT_FRIEND, userId, friendId);
+        loadFriendGraph();
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update(SQL_INSERT_FRIEND, userId, friendId);
+            changeLog.append(Change.Kind.FRIEND_ADDED, userId, friendId);
+            AfterCommit.run(() -> friendGraph.addEdge(userId, friendId));
+        });
+    }
+
+    /**
+     * Идемпотентная пакетная вставка дружеских связей: уже существующие пары пропускаются.
+     */
+    @Override
+    public int addFriends(List<Friendship> friendships) {
+        loadFriendGraph();
+        Set<Friendship> uniqueFriendships = new LinkedHashSet<>(friendships);
+        if (uniqueFriendships.isEmpty()) {
+            return 0;
+        }
+        return Objects.requireNonNull(transactionTemplate.execute(status -> insertFriends(uniqueFriendships)));
+    }
+
+    private int insertFriends(Set<Friendship> uniqueFriendships) {
+        String sql = "SELECT user_id, friend_id FROM friends WHERE (user_id, friend_id) IN (" +
+                uniqueFriendships.stream().map(friendship -> "(?, ?)").collect(Collectors.joining(", ")) + ")";
+        Object[] args = uniqueFriendships.stream()
+                .flatMap(friendship -> Stream.of(friendship.getUserId(), friendship.getFriendId()))
+                .toArray();
+        jdbcTemplate.query(sql, rs -> {
+            uniqueFriendships.remove(new Friendship(rs.getInt("user_id"), rs.getInt("friend_id")));
+        }, args);
+
+        jdbcTemplate.batchUpdate(SQL_INSERT_FRIEND, uniqueFriendships.stream()
+                .map(friendship -> new Object[]{friendship.getUserId(), friendship.getFriendId()})
+                .collect(Collectors.toList()));
+        changeLog.appendAll(Change.Kind.FRIEND_ADDED, uniqueFriendships, Friendship::getUserId, Friendship::getFriendId);
+        AfterCommit.run(() -> uniqueFriendships.forEach(friendship ->
+                friendGraph.addEdge(friendship.getUserId(), friendship.getFriendId())));
+        return uniqueFriendships.size();
+    }
+
+    @Override
+    public Set<Integer> findExistingUserIds(Collection<Integer> ids) {
+        List<Integer> idList = new ArrayList<>(new LinkedHashSet<>(ids));
+        Set<Integer> existing = new HashSet<>();
+        for (int from = 0; from < idList.size(); from += CHUNK_SIZE) {
+            List<Integer> chunk = idList.subList(from, Math.min(from + CHUNK_SIZE, idList.size()));
+            String sql = "SELECT user_id FROM users WHERE user_id IN (" +
+                    chunk.stream().map(id -> "?").collect(Collectors.joining(", ")) + ")";
+            existing.addAll(jdbcTemplate.queryForList(sql, Integer.class, chunk.toArray()));
+        }
+        return existing;
     }
 
     @Override
     public void removeFriend(Integer userId, Integer friendId) {
-        String sqlDeleteFromUser = "DELETE FROM friends WHERE user_id = ? AND friend_id = ?";
-        String sqlDeleteFromFriend = "DELETE FROM friends WHERE user_id = ? AND friend_id = ?";
+        loadFriendGraph();
 
-        // Удаляем связь со стороны пользователя
-        jdbcTemplate.update(sqlDeleteFromUser, userId, friendId);
+        transactionTemplate.executeWithoutResult(status -> {
+            // Удаляем связь со стороны пользователя
+            jdbcTemplate.update(SQL_DELETE_FRIEND, userId, friendId);
 
-        // Удаляем связь с обратной стороны (если существует)
-        jdbcTemplate.update(sqlDeleteFromFriend, friendId, userId);
+            // Удаляем связь с обратной стороны (если существует)
+            jdbcTemplate.update(SQL_DELETE_FRIEND, friendId, userId);
+            changeLog.append(Change.Kind.FRIEND_REMOVED, userId, friendId);
+            AfterCommit.run(() -> {
+                friendGraph.removeEdge(userId, friendId);
+                friendGraph.removeEdge(friendId, userId);
+            });
+        });
     }
 
+    @Override
+    @ReplicaRead
     public Collection<User> getUserFriends(Integer userId) {
-        List<Integer> friendIds = jdbcTemplate.query(SQL_GET_FRIENDS, (rs, rowNum) -> rs.getInt("friend_id"), userId);
-        return friendIds.stream()
-                .map(this::getUserById)
-                .flatMap(Optional::stream)
-                .collect(Collectors.toList());
+        loadFriendGraph();
+        return loadUsers(friendGraph.getFriends(userId));
     }
 
     @Override
+    public boolean hasFriend(Integer userId, Integer friendId) {
+        loadFriendGraph();
+        return friendGraph.hasEdge(userId, friendId);
+    }
+
+    @Override
+    @ReplicaRead
     public Collection<User> getCommonFriends(Integer userId1, Integer userId2) {
-        String sql = "SELECT friend_id FROM friends WHERE user_id = ? " +
-                "INTERSECT " +
-                "SELECT friend_id FROM friends WHERE user_id = ?";
-        List<Integer> commonFriendIds = jdbcTemplate.query(sql, new Object[]{userId1, userId2}, (rs, rowNum) -> rs.getInt("friend_id"));
+        loadFriendGraph();
+        return loadUsers(friendGraph.getCommonFriends(userId1, userId2));
+    }
+
+    @Override
+    public List<User> getFriendSuggestions(Integer userId, int limit) {
+        loadFriendGraph();
+        return loadUsers(friendSuggestions.suggest(userId, limit));
+    }
+
+    @Override
+    public List<User> getUsersByIds(Collection<Integer> ids) {
+        return loadUsers(ids.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    private List<User> loadUsers(int[] ids) {
+        return userCache.getAll(Arrays.stream(ids).boxed().collect(Collectors.toList()),
+                missing -> queryUsers(missing.stream().mapToInt(Integer::intValue).toArray()));
+    }
+
+    /**
+     * Загружает пользователей пачками IN-запросов, сохраняя порядок переданных идентификаторов.
+     */
+    private List<User> queryUsers(int[] ids) {
+        Map<Integer, User> usersById = new HashMap<>();
+        for (int from = 0; from < ids.length; from += CHUNK_SIZE) {
+            int to = Math.min(from + CHUNK_SIZE, ids.length);
+            Object[] chunk = Arrays.stream(ids, from, to).boxed().toArray();
+            String sql = "SELECT * FROM users WHERE user_id IN (" +
+                    Stream.generate(() -> "?").limit(chunk.length).collect(Collectors.joining(", ")) + ")";
+            jdbcTemplate.query(sql, rs -> {
+                User user = mapUser(rs);
+                usersById.put(user.getId(), user);
+            }, chunk);
+        }
+        List<User> users = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            User user = usersById.get(id);
+            if (user != null) {
+                users.add(user);
+            }
+        }
+        return users;
+    }
+
+    /**
+     * Применяет изменения других экземпляров к графу друзей и кэшу пользователей.
+     */
+    @Override
+    public void onChanges(List<Change> changes) {
+        loadFriendGraph();
+        for (Change change : changes) {
+            switch (change.kind()) {
+                case USER_UPDATED -> userCache.invalidate(change.entityId());
+                case USER_DELETED -> {
+                    friendGraph.removeUser(change.entityId());
+                    userCache.invalidate(change.entityId());
+                }
+                case FRIEND_ADDED -> friendGraph.addEdge(change.entityId(), change.relatedId());
+                case FRIEND_REMOVED -> {
+                    friendGraph.removeEdge(change.entityId(), change.relatedId());
+                    friendGraph.removeEdge(change.relatedId(), change.entityId());
+                }
+                default -> {
+                }
+            }
+        }
+    }
+
+    private Map<Integer, int[]> loadAdjacency() {
+        AdjacencyCollector collector = new AdjacencyCollector();
+        jdbcTemplate.query(SQL_GET_ALL_FRIENDS, collector);
+        return collector.finish();
+    }
+
+    /**
+     * Сбрасывает пользователя в кэше сразу и ещё раз после фиксации транзакции.
+     */
+    private void evict(int userId) {
+        userCache.invalidate(userId);
+        AfterCommit.run(() -> userCache.invalidate(userId));
+    }
+
+    private User mapUser(ResultSet rs) throws SQLException {
+        User user = new User();
+        user.setId(rs.getInt("user_id"));
+        user.setEmail(rs.getString("email"));
+        user.setLogin(rs.getString("login"));
+        user.setName(rs.getString("name"));
+        user.setBirthday(rs.getDate("birthday").toLocalDate());
+        return user;
+    }
+
+    /**
+     * Собирает списки друзей из строк, отсортированных по user_id, в примитивные массивы.
+     */
+    private static class AdjacencyCollector implements RowCallbackHandler {
+        private final Map<Integer, int[]> adjacency = new HashMap<>();
+        private int[] friendIds = new int[16];
+        private int size;
+        private Integer userId;
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            int rowUserId = rs.getInt("user_id");
+            if (userId != null && userId != rowUserId) {
+                flush();
+            }
+            userId = rowUserId;
+            if (size == friendIds.length) {
+                friendIds = Arrays.copyOf(friendIds, size * 2);
+            }
+            friendIds[size++] = rs.getInt("friend_id");
+        }
+
+        Map<Integer, int[]> finish() {
+            if (userId != null) {
+                flush();
+            }
+            return adjacency;
+        }
 
-        return commonFriendIds.stream()
-                .map(this::getUserById)
-                .flatMap(Optional::stream)
-                .collect(Collectors.toList());
+        private void flush() {
+            adjacency.put(userId, Arrays.copyOf(friendIds, size));
+            size = 0;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,273 @@
+package ru.yandex.practicum.filmorate.generator;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.dao.ReferenceDataRegistry;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.random.RandomGenerator;
+
+/**
+ * Заполняет пустую базу синтетическими данными заданного объёма. Запуск:
+ * java -jar filmorate.jar --spring.profiles.active=generate --filmorate.generate.likes=100000000
+ * <p>
+ * Активность пользователей, популярность фильмов и число друзей подчиняются закону Ципфа:
+ * немного блокбастеров и активных пользователей-«хабов», длинный хвост остальных.
+ * Все случайные величины выводятся из зерна и id сущности, поэтому при одинаковых параметрах
+ * получается одна и та же база независимо от числа потоков.
+ * <p>
+ * Каждая запись держит одно соединение, и связанные таблицы пишутся по очереди: так строки,
+ * на которые ссылаются внешние ключи, зафиксированы раньше ссылок, а задача не ждёт второе соединение
+ * из пула, занятое другими задачами. Завершение после генерации — в {@code FilmorateApplication.main}.
+ */
+@Slf4j
+@Component
+@Profile("generate")
+public class DatasetGenerator implements ApplicationRunner {
+    private static final int USERS_PER_TASK = 10_000;
+    private static final int MAX_SAMPLING_ATTEMPTS = 20;
+    // Даже самый активный пользователь не лайкает весь каталог
+    private static final int MAX_LINKS_PER_USER = 5_000;
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final ReferenceDataRegistry referenceData;
+    private final FilmStorage filmStorage;
+
+    private final int users;
+    private final int films;
+    private final long likes;
+    private final long friendships;
+    private final double filmPopularityExponent;
+    private final double userActivityExponent;
+    private final double friendHubExponent;
+    private final long seed;
+    private final int threads;
+
+    public DatasetGenerator(DataSource dataSource,
+                            JdbcTemplate jdbcTemplate,
+                            ReferenceDataRegistry referenceData,
+                            FilmStorage filmStorage,
+                            @Value("${filmorate.generate.users}") int users,
+                            @Value("${filmorate.generate.films}") int films,
+                            @Value("${filmorate.generate.likes}") long likes,
+                            @Value("${filmorate.generate.friendships}") long friendships,
+                            @Value("${filmorate.generate.film-popularity-exponent}") double filmPopularityExponent,
+                            @Value("${filmorate.generate.user-activity-exponent}") double userActivityExponent,
+                            @Value("${filmorate.generate.friend-hub-exponent}") double friendHubExponent,
+                            @Value("${filmorate.generate.seed}") long seed,
+                            @Value("${filmorate.generate.threads:0}") int threads) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+        this.referenceData = referenceData;
+        this.filmStorage = filmStorage;
+        this.users = users;
+        this.films = films;
+        this.likes = likes;
+        this.friendships = friendships;
+        this.filmPopularityExponent = filmPopularityExponent;
+        this.userActivityExponent = userActivityExponent;
+        this.friendHubExponent = friendHubExponent;
+        this.seed = seed;
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        requireEmptyTables();
+        log.info("Генерация данных: пользователей {}, фильмов {}, лайков ~{}, заявок в друзья ~{}, зерно {}",
+                users, films, likes, friendships, seed);
+        long start = System.nanoTime();
+
+        writeFilms();
+        writeUsers();
+        writeLikesAndFriends();
+        restartIdentities();
+        log.info("Пересчитаны счётчики лайков у {} фильмов", filmStorage.repairLikeCounts());
+
+        long seconds = Math.max(1, (System.nanoTime() - start) / 1_000_000_000L);
+        log.info("Генерация завершена за {} с", seconds);
+    }
+
+    private void requireEmptyTables() {
+        for (String table : List.of("films", "users", "film_likes", "friends")) {
+            Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM (SELECT 1 FROM " + table
+                    + " LIMIT 1) t", Integer.class);
+            if (count != null && count > 0) {
+                throw new IllegalStateException("Генерация возможна только в пустую базу, таблица " + table
+                        + " не пуста");
+            }
+        }
+    }
+
+    private void writeFilms() throws SQLException {
+        List<Genre> genres = referenceData.getAllGenres();
+        List<Mpa> mpa = referenceData.getAllMpa();
+        try (RowWriter filmWriter = RowWriter.open(dataSource, "films",
+                "film_id", "name", "description", "release_date", "duration", "mpa_id")) {
+            for (int filmId = 1; filmId <= films; filmId++) {
+                RandomGenerator random = random("film", filmId);
+                LocalDate releaseDate = LocalDate.of(1930, 1, 1).plusDays(random.nextInt(365 * 95));
+                filmWriter.write(filmId, "Фильм " + filmId, "Описание фильма " + filmId, releaseDate,
+                        60 + random.nextInt(140), mpa.get(random.nextInt(mpa.size())).getId());
+            }
+        }
+        try (RowWriter genreWriter = RowWriter.open(dataSource, "film_genre", "film_id", "genre_id")) {
+            for (int filmId = 1; filmId <= films; filmId++) {
+                RandomGenerator random = random("film-genres", filmId);
+                int genreCount = 1 + random.nextInt(Math.min(3, genres.size()));
+                int offset = random.nextInt(genres.size());
+                for (int i = 0; i < genreCount; i++) {
+                    genreWriter.write(filmId, genres.get((offset + i) % genres.size()).getId());
+                }
+            }
+        }
+        log.info("Записано фильмов: {}", films);
+    }
+
+    private void writeUsers() throws SQLException {
+        try (RowWriter writer = RowWriter.open(dataSource, "users", "user_id", "name", "email", "login", "birthday")) {
+            for (int userId = 1; userId <= users; userId++) {
+                RandomGenerator random = random("user", userId);
+                writer.write(userId, "Пользователь " + userId, "user" + userId + "@example.com", "user" + userId,
+                        LocalDate.of(1950, 1, 1).plusDays(random.nextInt(365 * 55)));
+            }
+        }
+        log.info("Записано пользователей: {}", users);
+    }
+
+    /**
+     * Лайки и друзья пишутся параллельно блоками пользователей: задача сначала пишет лайки блока,
+     * затем друзей, и в каждый момент держит не больше одного соединения.
+     */
+    private void writeLikesAndFriends() throws Exception {
+        int[] filmByRank = shuffledIds(films, random("films-order", 0));
+        double activityNorm = harmonic(users, userActivityExponent);
+        ZipfSampler filmSampler = new ZipfSampler(films, filmPopularityExponent);
+        ZipfSampler hubSampler = new ZipfSampler(users, friendHubExponent);
+        AtomicLong writtenLikes = new AtomicLong();
+        AtomicLong writtenFriendships = new AtomicLong();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int from = 1; from <= users; from += USERS_PER_TASK) {
+                int firstUser = from;
+                int lastUser = Math.min(users, from + USERS_PER_TASK - 1);
+                tasks.add(executor.submit(() -> {
+                    try (RowWriter likeWriter = RowWriter.open(dataSource, "film_likes", "user_id", "film_id")) {
+                        for (int userId = firstUser; userId <= lastUser; userId++) {
+                            double share = Math.pow(userId, -userActivityExponent) / activityNorm;
+                            int likeCount = (int) Math.min(Math.min(films / 2, MAX_LINKS_PER_USER),
+                                    Math.round(likes * share));
+                            for (int rank : distinctSample(filmSampler, films, likeCount, 0,
+                                    random("user-likes", userId))) {
+                                likeWriter.write(userId, filmByRank[rank - 1]);
+                            }
+                        }
+                        writtenLikes.addAndGet(likeWriter.written());
+                    }
+                    try (RowWriter friendWriter = RowWriter.open(dataSource, "friends", "user_id", "friend_id")) {
+                        for (int userId = firstUser; userId <= lastUser; userId++) {
+                            double share = Math.pow(userId, -userActivityExponent) / activityNorm;
+                            int friendCount = (int) Math.min(Math.min(users / 2, MAX_LINKS_PER_USER),
+                                    Math.round(friendships * share));
+                            for (int friendId : distinctSample(hubSampler, users, friendCount, userId,
+                                    random("user-friends", userId))) {
+                                friendWriter.write(userId, friendId);
+                            }
+                        }
+                        writtenFriendships.addAndGet(friendWriter.written());
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        log.info("Записано лайков: {}, заявок в друзья: {}", writtenLikes.get(), writtenFriendships.get());
+    }
+
+    /**
+     * count различных значений из 1..n по распределению Ципфа, кроме excluded.
+     * Если хвост распределения слишком редок, недостающие значения добираются равномерно.
+     */
+    private static int[] distinctSample(ZipfSampler sampler, int n, int count, int excluded, RandomGenerator random) {
+        Set<Integer> chosen = new LinkedHashSet<>(Math.max(16, count * 2));
+        int attempts = count * MAX_SAMPLING_ATTEMPTS;
+        while (chosen.size() < count && attempts-- > 0) {
+            int value = sampler.sample(random);
+            if (value != excluded) {
+                chosen.add(value);
+            }
+        }
+        while (chosen.size() < count) {
+            int value = 1 + random.nextInt(n);
+            if (value != excluded) {
+                chosen.add(value);
+            }
+        }
+        return chosen.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private void restartIdentities() throws SQLException {
+        String product;
+        try (Connection connection = dataSource.getConnection()) {
+            product = connection.getMetaData().getDatabaseProductName();
+        }
+        if ("PostgreSQL".equals(product)) {
+            jdbcTemplate.queryForObject("SELECT setval(pg_get_serial_sequence('films', 'film_id'), ?)", Long.class,
+                    Math.max(1, films));
+            jdbcTemplate.queryForObject("SELECT setval(pg_get_serial_sequence('users', 'user_id'), ?)", Long.class,
+                    Math.max(1, users));
+        } else {
+            jdbcTemplate.execute("ALTER TABLE films ALTER COLUMN film_id RESTART WITH " + (films + 1));
+            jdbcTemplate.execute("ALTER TABLE users ALTER COLUMN user_id RESTART WITH " + (users + 1));
+        }
+    }
+
+    private RandomGenerator random(String stream, long id) {
+        return new SplittableRandom(seed ^ (stream.hashCode() * 0x9E3779B97F4A7C15L) ^ (id * 0xBF58476D1CE4E5B9L));
+    }
+
+    private static int[] shuffledIds(int n, RandomGenerator random) {
+        int[] ids = new int[n];
+        for (int i = 0; i < n; i++) {
+            ids[i] = i + 1;
+        }
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = ids[i];
+            ids[i] = ids[j];
+            ids[j] = tmp;
+        }
+        return ids;
+    }
+
+    private static double harmonic(int n, double exponent) {
+        double sum = 0;
+        for (int k = 1; k <= n; k++) {
+            sum += Math.pow(k, -exponent);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,156 @@
+package ru.yandex.practicum.filmorate.generator;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collections;
+
+/**
+ * Потоковая запись строк в одну таблицу через собственное соединение.
+ * Для PostgreSQL используется COPY FROM STDIN, для остальных баз — пакетные INSERT
+ * с фиксацией каждые {@link #BATCH_SIZE} строк, чтобы не держать огромную транзакцию.
+ */
+abstract class RowWriter implements AutoCloseable {
+    static final int BATCH_SIZE = 10_000;
+
+    protected final Connection connection;
+    private long written;
+
+    private RowWriter(Connection connection) {
+        this.connection = connection;
+    }
+
+    static RowWriter open(DataSource dataSource, String table, String... columns) throws SQLException {
+        Connection connection = dataSource.getConnection();
+        try {
+            if (connection.isWrapperFor(PGConnection.class)) {
+                return new CopyWriter(connection, table, columns);
+            }
+            return new BatchWriter(connection, table, columns);
+        } catch (SQLException | RuntimeException e) {
+            connection.close();
+            throw e;
+        }
+    }
+
+    void write(Object... values) throws SQLException {
+        append(values);
+        written++;
+        if (written % BATCH_SIZE == 0) {
+            flush();
+        }
+    }
+
+    long written() {
+        return written;
+    }
+
+    protected abstract void append(Object[] values) throws SQLException;
+
+    protected abstract void flush() throws SQLException;
+
+    @Override
+    public void close() throws SQLException {
+        try {
+            flush();
+            finish();
+        } finally {
+            connection.close();
+        }
+    }
+
+    protected void finish() throws SQLException {
+    }
+
+    private static final class BatchWriter extends RowWriter {
+        private final PreparedStatement statement;
+        private final boolean autoCommit;
+        private int pending;
+
+        private BatchWriter(Connection connection, String table, String[] columns) throws SQLException {
+            super(connection);
+            this.autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            this.statement = connection.prepareStatement("INSERT INTO " + table + " (" + String.join(", ", columns)
+                    + ") VALUES (" + String.join(", ", Collections.nCopies(columns.length, "?")) + ")");
+        }
+
+        @Override
+        protected void append(Object[] values) throws SQLException {
+            for (int i = 0; i < values.length; i++) {
+                statement.setObject(i + 1, values[i]);
+            }
+            statement.addBatch();
+            pending++;
+        }
+
+        @Override
+        protected void flush() throws SQLException {
+            if (pending > 0) {
+                statement.executeBatch();
+                connection.commit();
+                pending = 0;
+            }
+        }
+
+        @Override
+        protected void finish() throws SQLException {
+            statement.close();
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    private static final class CopyWriter extends RowWriter {
+        private final CopyIn copy;
+        private final StringBuilder buffer = new StringBuilder(1 << 16);
+
+        private CopyWriter(Connection connection, String table, String[] columns) throws SQLException {
+            super(connection);
+            this.copy = connection.unwrap(PGConnection.class).getCopyAPI()
+                    .copyIn("COPY " + table + " (" + String.join(", ", columns) + ") FROM STDIN");
+        }
+
+        @Override
+        protected void append(Object[] values) {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    buffer.append('\t');
+                }
+                appendEscaped(String.valueOf(values[i]));
+            }
+            buffer.append('\n');
+        }
+
+        @Override
+        protected void flush() throws SQLException {
+            if (!buffer.isEmpty()) {
+                byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+                copy.writeToCopy(bytes, 0, bytes.length);
+                buffer.setLength(0);
+            }
+        }
+
+        @Override
+        protected void finish() throws SQLException {
+            copy.endCopy();
+        }
+
+        private void appendEscaped(String value) {
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '\\' -> buffer.append("\\\\");
+                    case '\t' -> buffer.append("\\t");
+                    case '\n' -> buffer.append("\\n");
+                    case '\r' -> buffer.append("\\r");
+                    default -> buffer.append(c);
+                }
+            }
+        }
+    }
+}
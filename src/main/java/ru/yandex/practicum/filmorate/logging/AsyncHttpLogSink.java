@@ -0,0 +1,153 @@
+package ru.yandex.practicum.filmorate.logging;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.zalando.logbook.Correlation;
+import org.zalando.logbook.HttpMessage;
+import org.zalando.logbook.HttpRequest;
+import org.zalando.logbook.HttpResponse;
+import org.zalando.logbook.Precorrelation;
+import org.zalando.logbook.Sink;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Журнал HTTP без форматирования и записи в потоке запроса. В потоке запроса из сообщений
+ * копируются только нужные поля (тела обрезаются до max-body-size), запись кладётся в ограниченный буфер,
+ * а строки журнала формирует отдельный поток. Если буфер заполнен, запись отбрасывается
+ * и учитывается в метрике filmorate.http.log.dropped: запрос не ждёт журнала.
+ */
+@Slf4j
+public class AsyncHttpLogSink implements Sink {
+    private static final int DRAIN_BATCH = 256;
+
+    private final BlockingQueue<Entry> buffer;
+    private final int maxBodySize;
+    private final Counter dropped;
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    public AsyncHttpLogSink(int bufferSize, int maxBodySize, MeterRegistry registry) {
+        this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        this.maxBodySize = maxBodySize;
+        this.dropped = Counter.builder("filmorate.http.log.dropped")
+                .description("Записи журнала HTTP, отброшенные из-за заполненного буфера")
+                .register(registry);
+        Gauge.builder("filmorate.http.log.buffer", buffer, BlockingQueue::size)
+                .description("Записи журнала HTTP, ожидающие записи")
+                .register(registry);
+        this.writer = new Thread(this::runWriter, "http-log-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    @Override
+    public boolean isActive() {
+        return log.isInfoEnabled();
+    }
+
+    @Override
+    public void write(Precorrelation precorrelation, HttpRequest request) {
+        // Запрос пишется вместе с ответом, см. CompactRouteStrategy
+    }
+
+    @Override
+    public void write(Correlation correlation, HttpRequest request, HttpResponse response) throws IOException {
+        String query = request.getQuery();
+        Entry entry = new Entry(request.getMethod(),
+                query.isEmpty() ? request.getPath() : request.getPath() + "?" + query,
+                response.getStatus(),
+                correlation.getDuration().toMillis(),
+                body(request),
+                body(response));
+        if (!buffer.offer(entry)) {
+            dropped.increment();
+        }
+    }
+
+    /**
+     * Дописывает оставшиеся записи при остановке приложения.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(5));
+        List<Entry> rest = new ArrayList<>();
+        buffer.drainTo(rest);
+        rest.forEach(this::print);
+    }
+
+    private String body(HttpMessage message) throws IOException {
+        byte[] body = message.getBody();
+        if (body.length == 0) {
+            return null;
+        }
+        Charset charset = message.getCharset();
+        if (body.length <= maxBodySize) {
+            return new String(body, charset);
+        }
+        return truncate(body, maxBodySize, charset) + "...(" + body.length + " байт)";
+    }
+
+    /**
+     * Первые maxBytes байт тела без разрезанного многобайтового символа на конце.
+     */
+    static String truncate(byte[] body, int maxBytes, Charset charset) {
+        CharsetDecoder decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        CharBuffer chars = CharBuffer.allocate(maxBytes);
+        // Без признака конца ввода неполная последовательность байт остаётся недекодированной
+        decoder.decode(ByteBuffer.wrap(body, 0, maxBytes), chars, false);
+        return chars.flip().toString();
+    }
+
+    private void runWriter() {
+        List<Entry> batch = new ArrayList<>(DRAIN_BATCH);
+        while (running) {
+            try {
+                Entry first = buffer.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                buffer.drainTo(batch, DRAIN_BATCH - 1);
+                batch.forEach(this::print);
+            } catch (InterruptedException e) {
+                // Поток останавливается по флагу running, прерывание не используется
+            } catch (RuntimeException e) {
+                log.warn("Не удалось записать журнал HTTP: {}", e.getMessage());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void print(Entry entry) {
+        if (entry.requestBody() == null && entry.responseBody() == null) {
+            log.info("method={} uri={} status={} duration_ms={}",
+                    entry.method(), entry.uri(), entry.status(), entry.durationMillis());
+        } else {
+            log.info("method={} uri={} status={} duration_ms={} request={} response={}",
+                    entry.method(), entry.uri(), entry.status(), entry.durationMillis(),
+                    entry.requestBody(), entry.responseBody());
+        }
+    }
+
+    private record Entry(String method, String uri, int status, long durationMillis,
+                         String requestBody, String responseBody) {
+    }
+}
@@ -0,0 +1,47 @@
+package ru.yandex.practicum.filmorate.logging;
+
+import org.zalando.logbook.Correlation;
+import org.zalando.logbook.HttpRequest;
+import org.zalando.logbook.HttpResponse;
+import org.zalando.logbook.Precorrelation;
+import org.zalando.logbook.Sink;
+import org.zalando.logbook.Strategy;
+
+import java.io.IOException;
+
+/**
+ * Для горячих адресов тела запроса и ответа не буферизуются: в журнал попадает только сводка
+ * (метод, адрес, статус, время). Запись идёт одной строкой после ответа.
+ */
+public class CompactRouteStrategy implements Strategy {
+    private final HttpLogRoutes compactRoutes;
+
+    public CompactRouteStrategy(HttpLogRoutes compactRoutes) {
+        this.compactRoutes = compactRoutes;
+    }
+
+    @Override
+    public HttpRequest process(HttpRequest request) throws IOException {
+        return isCompact(request) ? request.withoutBody() : request.withBody();
+    }
+
+    @Override
+    public void write(Precorrelation precorrelation, HttpRequest request, Sink sink) {
+        // Запрос пишется вместе с ответом
+    }
+
+    @Override
+    public HttpResponse process(HttpRequest request, HttpResponse response) throws IOException {
+        return isCompact(request) ? response.withoutBody() : response.withBody();
+    }
+
+    @Override
+    public void write(Correlation correlation, HttpRequest request, HttpResponse response, Sink sink)
+            throws IOException {
+        sink.write(correlation, request, response);
+    }
+
+    private boolean isCompact(HttpRequest request) {
+        return compactRoutes.matches(request.getMethod(), request.getPath());
+    }
+}
@@ -0,0 +1,50 @@
+package ru.yandex.practicum.filmorate.logging;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.zalando.logbook.HttpRequest;
+import org.zalando.logbook.Sink;
+import org.zalando.logbook.Strategy;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+/**
+ * Выборочный асинхронный журнал HTTP (filmorate.http-log.mode=sampled) вместо стандартного Logbook.
+ * Решение о выборке принимается до буферизации тел: невыбранный запрос обходит Logbook целиком.
+ * Правила выборки заменяют logbook.predicate, поэтому исключаемые адреса задаются в них с долей 0.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "filmorate.http-log.mode", havingValue = "sampled")
+public class HttpLogConfig {
+
+    // Имя совпадает с бином автоконфигурации Logbook, который строится из logbook.predicate
+    @Bean
+    public Predicate<HttpRequest> requestCondition(@Value("${filmorate.http-log.sampling}") String sampling) {
+        HttpLogRoutes routes = HttpLogRoutes.parse(sampling);
+        log.info("Выборочный журнал HTTP: {}", sampling);
+        return request -> {
+            double rate = routes.match(request.getMethod(), request.getPath())
+                    .map(HttpLogRoutes.Route::sampleRate)
+                    .orElse(1.0);
+            return rate >= 1 || (rate > 0 && ThreadLocalRandom.current().nextDouble() < rate);
+        };
+    }
+
+    @Bean
+    public Strategy compactRouteStrategy(@Value("${filmorate.http-log.compact}") String compact) {
+        return new CompactRouteStrategy(HttpLogRoutes.parse(compact));
+    }
+
+    @Bean
+    public Sink asyncHttpLogSink(@Value("${filmorate.http-log.buffer-size:8192}") int bufferSize,
+                                 @Value("${filmorate.http-log.max-body-size:1024}") int maxBodySize,
+                                 MeterRegistry registry) {
+        return new AsyncHttpLogSink(bufferSize, maxBodySize, registry);
+    }
+}
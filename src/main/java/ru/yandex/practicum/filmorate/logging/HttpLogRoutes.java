@@ -0,0 +1,64 @@
+package ru.yandex.practicum.filmorate.logging;
+
+import org.springframework.util.AntPathMatcher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Список правил вида "[МЕТОД ]шаблон[=доля]" через запятую, например
+ * "GET /films/popular=0.01, /bulk/**=0, /**=1". Срабатывает первое подходящее правило.
+ */
+public class HttpLogRoutes {
+    private static final AntPathMatcher MATCHER = new AntPathMatcher();
+
+    private final List<Route> routes;
+
+    private HttpLogRoutes(List<Route> routes) {
+        this.routes = routes;
+    }
+
+    public static HttpLogRoutes parse(String spec) {
+        List<Route> routes = new ArrayList<>();
+        for (String entry : spec.split(",")) {
+            String rule = entry.trim();
+            if (rule.isEmpty()) {
+                continue;
+            }
+            double rate = 1;
+            int equals = rule.lastIndexOf('=');
+            if (equals >= 0) {
+                rate = Double.parseDouble(rule.substring(equals + 1).trim());
+                rule = rule.substring(0, equals).trim();
+                if (rate < 0 || rate > 1) {
+                    throw new IllegalArgumentException("Доля записываемых запросов должна быть от 0 до 1: " + entry);
+                }
+            }
+            String method = null;
+            int space = rule.indexOf(' ');
+            if (space >= 0) {
+                method = rule.substring(0, space).trim().toUpperCase();
+                rule = rule.substring(space + 1).trim();
+            }
+            routes.add(new Route(method, rule, rate));
+        }
+        return new HttpLogRoutes(List.copyOf(routes));
+    }
+
+    public Optional<Route> match(String method, String path) {
+        for (Route route : routes) {
+            if ((route.method() == null || route.method().equals(method)) && MATCHER.match(route.pattern(), path)) {
+                return Optional.of(route);
+            }
+        }
+        return Optional.empty();
+    }
+
+    public boolean matches(String method, String path) {
+        return match(method, path).isPresent();
+    }
+
+    public record Route(String method, String pattern, double sampleRate) {
+    }
+}
@@ -0,0 +1,77 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Таймер на каждый публичный метод хранилищ и сервисов: filmorate.method{layer, class, method, exception}.
+ * Таймеры ищутся по методу (и классу исключения) в локальных картах, поэтому на горячем пути нет
+ * построения идентификатора метрики — только поиск в ConcurrentHashMap и два вызова System.nanoTime.
+ */
+@Aspect
+public class MethodMetricsAspect {
+    public static final String METRIC_NAME = "filmorate.method";
+
+    private final MeterRegistry registry;
+    private final Map<Method, Timer> successTimers = new ConcurrentHashMap<>();
+    private final Map<FailureKey, Timer> failureTimers = new ConcurrentHashMap<>();
+
+    public MethodMetricsAspect(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Around("execution(public * (ru.yandex.practicum.filmorate.storage.FilmStorage+"
+            + " || ru.yandex.practicum.filmorate.storage.UserStorage+"
+            + " || ru.yandex.practicum.filmorate.storage.GenreStorage+"
+            + " || ru.yandex.practicum.filmorate.storage.MpaStorage+).*(..))")
+    public Object timeStorage(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(joinPoint, "storage");
+    }
+
+    @Around("within(ru.yandex.practicum.filmorate.service..*)"
+            + " && @within(org.springframework.stereotype.Service) && execution(public * *(..))")
+    public Object timeService(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(joinPoint, "service");
+    }
+
+    private Object time(ProceedingJoinPoint joinPoint, String layer) throws Throwable {
+        long start = System.nanoTime();
+        try {
+            Object result = joinPoint.proceed();
+            successTimers.computeIfAbsent(method(joinPoint), key -> timer(joinPoint, layer, "none"))
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return result;
+        } catch (Throwable e) {
+            failureTimers.computeIfAbsent(new FailureKey(method(joinPoint), e.getClass()),
+                            key -> timer(joinPoint, layer, e.getClass().getSimpleName()))
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+    }
+
+    private static Method method(ProceedingJoinPoint joinPoint) {
+        return ((MethodSignature) joinPoint.getSignature()).getMethod();
+    }
+
+    private Timer timer(ProceedingJoinPoint joinPoint, String layer, String exception) {
+        return Timer.builder(METRIC_NAME)
+                .description("Время выполнения методов хранилищ и сервисов")
+                .tag("layer", layer)
+                .tag("class", joinPoint.getTarget().getClass().getSimpleName())
+                .tag("method", joinPoint.getSignature().getName())
+                .tag("exception", exception)
+                .register(registry);
+    }
+
+    private record FailureKey(Method method, Class<? extends Throwable> exception) {
+    }
+}
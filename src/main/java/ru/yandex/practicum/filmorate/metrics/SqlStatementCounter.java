@@ -0,0 +1,29 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+/**
+ * Счётчик SQL-запросов текущего HTTP-запроса. Считаются только запросы, выполненные в потоке,
+ * который обрабатывает HTTP-запрос; фоновые потоки и потоковые выгрузки не учитываются.
+ */
+public final class SqlStatementCounter {
+    private static final ThreadLocal<int[]> CURRENT = new ThreadLocal<>();
+
+    private SqlStatementCounter() {
+    }
+
+    static void start() {
+        CURRENT.set(new int[1]);
+    }
+
+    static int stop() {
+        int[] counter = CURRENT.get();
+        CURRENT.remove();
+        return counter != null ? counter[0] : 0;
+    }
+
+    static void increment() {
+        int[] counter = CURRENT.get();
+        if (counter != null) {
+            counter[0]++;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Записывает число SQL-запросов на HTTP-запрос в filmorate.http.sql.statements{method, uri}.
+ * uri — шаблон обработчика, например /films/{id}, чтобы число временных рядов не росло.
+ */
+public class SqlStatementMetricsFilter extends OncePerRequestFilter {
+    public static final String METRIC_NAME = "filmorate.http.sql.statements";
+
+    private final MeterRegistry registry;
+    private final Map<String, DistributionSummary> summaries = new ConcurrentHashMap<>();
+
+    public SqlStatementMetricsFilter(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        SqlStatementCounter.start();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            int statements = SqlStatementCounter.stop();
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String method = request.getMethod();
+            String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+            summaries.computeIfAbsent(method + " " + uri, key -> DistributionSummary.builder(METRIC_NAME)
+                            .description("Количество SQL-запросов на HTTP-запрос")
+                            .tag("method", method)
+                            .tag("uri", uri)
+                            .register(registry))
+                    .record(statements);
+        }
+    }
+}
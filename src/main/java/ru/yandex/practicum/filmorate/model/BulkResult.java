@@ -0,0 +1,27 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class BulkResult {
+    // Ошибок в ответе не больше этого числа, остальные только учитываются в rejected
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    private int accepted;
+    private int rejected;
+    private List<BulkError> errors = new ArrayList<>();
+
+    public void accept(int count) {
+        accepted += count;
+    }
+
+    public void reject(int index, String message) {
+        rejected++;
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add(new BulkError(index, message));
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+import java.util.function.Function;
+
+@Data
+@AllArgsConstructor
+public class CursorPage<T> {
+    public static final int MAX_LIMIT = 1000;
+
+    private List<T> items;
+
+    // id последнего элемента страницы, null — если следующей страницы нет
+    private Integer nextCursor;
+
+    public static <T> CursorPage<T> of(List<T> rows, int limit, Function<T, Integer> idExtractor) {
+        if (rows.size() <= limit) {
+            return new CursorPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, limit);
+        return new CursorPage<>(items, idExtractor.apply(items.get(limit - 1)));
+    }
+}
@@ -29,6 +29,7 @@ public class Film {
     private long duration;
 
     private Set<Integer> likes = new HashSet<>();
+    private long likesCount;
     private Mpa mpa;
     private Set<Genre> genres = new HashSet<>();
 
@@ -0,0 +1,70 @@
+package ru.yandex.practicum.filmorate.routing;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Read-your-writes: после изменяющего запроса клиент получает cookie со временем окончания окна,
+ * и до этого времени его запросы читают только из основной базы. Окно хранится у клиента,
+ * поэтому работает и тогда, когда балансировщик отправляет следующий запрос на другой экземпляр.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+    public static final String COOKIE_NAME = "filmorate-primary-until";
+    private static final Set<String> SAFE_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+
+    private final ReplicaRouting routing;
+    private final Duration window;
+
+    public ReadYourWritesFilter(ReplicaRouting routing, Duration window) {
+        this.routing = routing;
+        this.window = window;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        boolean write = !SAFE_METHODS.contains(request.getMethod());
+        if (write) {
+            Cookie cookie = new Cookie(COOKIE_NAME, Long.toString(System.currentTimeMillis() + window.toMillis()));
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge((int) Math.max(1, (window.toMillis() + 999) / 1000));
+            response.addCookie(cookie);
+        }
+        if (!write && !insideWindow(request)) {
+            chain.doFilter(request, response);
+            return;
+        }
+        ReplicaRouting.Route previous = routing.enter(ReplicaRouting.Route.PRIMARY);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            routing.exit(previous);
+        }
+    }
+
+    private static boolean insideWindow(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return false;
+        }
+        for (Cookie cookie : cookies) {
+            if (COOKIE_NAME.equals(cookie.getName())) {
+                try {
+                    return Long.parseLong(cookie.getValue()) > System.currentTimeMillis();
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,59 @@
+package ru.yandex.practicum.filmorate.routing;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import ru.yandex.practicum.filmorate.dao.ChangeLog;
+
+import javax.sql.DataSource;
+
+/**
+ * Отставание реплики в записях change_log: последний seq основной базы минус последний seq реплики.
+ * Seq основной базы читается первым, поэтому нулевое отставание значит, что реплика содержит
+ * всё, что было зафиксировано к началу проверки. Если отставание больше max-lag или реплика
+ * недоступна, чтение возвращается в основную базу до следующей успешной проверки.
+ * Между проверками реплика может отстать сильнее, чем показала последняя проверка, на изменения
+ * за один интервал опроса.
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+    private final ChangeLog primaryLog;
+    private final ChangeLog replicaLog;
+    private final ReplicaRouting routing;
+    private final long maxLag;
+    private volatile long lag = -1;
+
+    public ReplicaLagMonitor(DataSource primary, DataSource replica, ReplicaRouting routing, long maxLag,
+                             MeterRegistry registry) {
+        this.primaryLog = new ChangeLog(new JdbcTemplate(primary));
+        this.replicaLog = new ChangeLog(new JdbcTemplate(replica));
+        this.routing = routing;
+        this.maxLag = maxLag;
+        Gauge.builder("filmorate.datasource.replica.lag", this, monitor -> monitor.lag)
+                .description("Отставание реплики в записях журнала изменений, -1 — реплика недоступна")
+                .register(registry);
+    }
+
+    @Scheduled(fixedDelayString = "${filmorate.datasource.replica.lag-check-interval-ms:500}")
+    public void check() {
+        boolean wasAvailable = routing.isReplicaAvailable();
+        try {
+            long primarySeq = primaryLog.lastSeq();
+            long replicaSeq = replicaLog.lastSeq();
+            lag = Math.max(0, primarySeq - replicaSeq);
+        } catch (DataAccessException e) {
+            lag = -1;
+            if (wasAvailable) {
+                log.warn("Реплика недоступна, чтение переключено на основную базу: {}", e.getMessage());
+            }
+        }
+        boolean available = lag >= 0 && lag <= maxLag;
+        routing.setReplicaAvailable(available);
+        if (available != wasAvailable && lag >= 0) {
+            log.info("Отставание реплики {} записей, чтение с реплики {}", lag, available ? "включено" : "выключено");
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package ru.yandex.practicum.filmorate.routing;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Метод хранилища только читает данные и может выполняться на реплике.
+ * Без включённой маршрутизации (filmorate.datasource.replica.enabled) аннотация ни на что не влияет.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ReplicaRead {
+}
@@ -0,0 +1,32 @@
+package ru.yandex.practicum.filmorate.routing;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Направляет методы с {@link ReplicaRead} на реплику. Внутри транзакции маршрут не меняется:
+ * её соединение уже выбрано и могло видеть незафиксированные записи.
+ */
+@Aspect
+public class ReplicaReadAspect {
+    private final ReplicaRouting routing;
+
+    public ReplicaReadAspect(ReplicaRouting routing) {
+        this.routing = routing;
+    }
+
+    @Around("@annotation(ru.yandex.practicum.filmorate.routing.ReplicaRead)")
+    public Object route(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return joinPoint.proceed();
+        }
+        ReplicaRouting.Route previous = routing.enter(ReplicaRouting.Route.REPLICA);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            routing.exit(previous);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package ru.yandex.practicum.filmorate.routing;
+
+/**
+ * Выбор базы для текущего потока: чтение с реплики разрешает {@link ReplicaReadAspect},
+ * запрет на время окна read-your-writes ставит {@link ReadYourWritesFilter}.
+ * Реплика используется, только если {@link ReplicaLagMonitor} считает её догнавшей основную базу.
+ */
+public class ReplicaRouting {
+    private final ThreadLocal<Route> route = new ThreadLocal<>();
+    private volatile boolean replicaAvailable;
+
+    public enum Route {
+        REPLICA,
+        PRIMARY
+    }
+
+    /**
+     * Устанавливает маршрут и возвращает предыдущий для {@link #exit(Route)}.
+     * Запрет реплики сильнее разрешения: вложенный вызов с REPLICA его не снимает.
+     */
+    public Route enter(Route next) {
+        Route previous = route.get();
+        if (previous != Route.PRIMARY) {
+            route.set(next);
+        }
+        return previous;
+    }
+
+    public void exit(Route previous) {
+        if (previous == null) {
+            route.remove();
+        } else {
+            route.set(previous);
+        }
+    }
+
+    public boolean useReplica() {
+        return route.get() == Route.REPLICA && replicaAvailable;
+    }
+
+    public boolean isReplicaAvailable() {
+        return replicaAvailable;
+    }
+
+    void setReplicaAvailable(boolean replicaAvailable) {
+        this.replicaAvailable = replicaAvailable;
+    }
+}
@@ -0,0 +1,89 @@
+package ru.yandex.practicum.filmorate.routing;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Чтение с реплики (filmorate.datasource.replica.enabled=true). Основная база настраивается
+ * свойствами spring.datasource, реплика — filmorate.datasource.replica. Приложение получает один
+ * DataSource, который отправляет в реплику только методы с {@link ReplicaRead} вне транзакций,
+ * вне окна read-your-writes и пока реплика не отстаёт.
+ */
+@Configuration
+@ConditionalOnProperty(name = "filmorate.datasource.replica.enabled", havingValue = "true")
+public class ReplicaRoutingConfig {
+
+    @Bean
+    public ReplicaRouting replicaRouting() {
+        return new ReplicaRouting();
+    }
+
+    @Bean
+    public DataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    public DataSource replicaDataSource(@Value("${filmorate.datasource.replica.url}") String url,
+                                        @Value("${filmorate.datasource.replica.username:${spring.datasource.username:}}") String username,
+                                        @Value("${filmorate.datasource.replica.password:${spring.datasource.password:}}") String password,
+                                        @Value("${filmorate.datasource.replica.maximum-pool-size:10}") int poolSize) {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+        dataSource.setPoolName("replica");
+        dataSource.setMaximumPoolSize(poolSize);
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                 @Qualifier("replicaDataSource") DataSource replica,
+                                 ReplicaRouting routing) {
+        return new ReplicaRoutingDataSource(primary, replica, routing);
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(@Qualifier("primaryDataSource") DataSource primary,
+                                               @Qualifier("replicaDataSource") DataSource replica,
+                                               ReplicaRouting routing,
+                                               @Value("${filmorate.datasource.replica.max-lag:0}") long maxLag,
+                                               MeterRegistry registry) {
+        return new ReplicaLagMonitor(primary, replica, routing, maxLag, registry);
+    }
+
+    @Bean
+    public ReplicaReadAspect replicaReadAspect(ReplicaRouting routing) {
+        return new ReplicaReadAspect(routing);
+    }
+
+    @Bean
+    public FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilter(
+            ReplicaRouting routing,
+            @Value("${filmorate.datasource.replica.read-your-writes-window:5s}") Duration window) {
+        FilterRegistrationBean<ReadYourWritesFilter> registration =
+                new FilterRegistrationBean<>(new ReadYourWritesFilter(routing, window));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 20);
+        return registration;
+    }
+}
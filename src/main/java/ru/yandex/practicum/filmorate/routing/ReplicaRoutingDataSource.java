@@ -0,0 +1,31 @@
+package ru.yandex.practicum.filmorate.routing;
+
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Основной DataSource приложения при включённой реплике. База выбирается в момент первого запроса
+ * на соединении, а не при его получении: транзакция, которая не дошла до SQL (например, ответ из кэша),
+ * соединение не берёт вовсе. Без явного разрешения все запросы идут в основную базу.
+ */
+public class ReplicaRoutingDataSource extends LazyConnectionDataSourceProxy {
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, ReplicaRouting routing) {
+        AbstractRoutingDataSource router = new AbstractRoutingDataSource() {
+            @Override
+            protected Object determineCurrentLookupKey() {
+                return routing.useReplica() ? ReplicaRouting.Route.REPLICA : ReplicaRouting.Route.PRIMARY;
+            }
+        };
+        router.setTargetDataSources(Map.of(
+                ReplicaRouting.Route.PRIMARY, primary,
+                ReplicaRouting.Route.REPLICA, replica));
+        router.setDefaultTargetDataSource(primary);
+        router.afterPropertiesSet();
+        setTargetDataSource(router);
+        afterPropertiesSet();
+    }
+}
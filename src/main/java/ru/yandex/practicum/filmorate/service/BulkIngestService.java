@@ -0,0 +1,259 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.exceptions.GenreNotFoundException;
+import ru.yandex.practicum.filmorate.model.BulkResult;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Friendship;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.GenreStorage;
+import ru.yandex.practicum.filmorate.storage.MpaStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Массовая загрузка данных. Тело запроса — JSON-массив или NDJSON, записи читаются потоково,
+ * проверяются и пишутся пачками, каждая пачка в отдельной транзакции.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BulkIngestService {
+    private static final int CHUNK_SIZE = 1000;
+    private static final LocalDate FIRST_FILM_DATE = LocalDate.of(1895, 12, 28);
+
+    private final FilmStorage filmStorage;
+    private final UserStorage userStorage;
+    private final MpaStorage mpaStorage;
+    private final GenreStorage genreStorage;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityVersions versions;
+
+    public BulkResult importFilms(InputStream body) throws IOException {
+        try {
+            return ingest(body, Film.class, this::validateFilm, films -> {
+                filmStorage.addFilms(films);
+                return Map.of();
+            });
+        } finally {
+            // Часть пачек могла записаться и при ошибке
+            versions.allFilmsChanged();
+        }
+    }
+
+    public BulkResult importUsers(InputStream body) throws IOException {
+        try {
+            return ingest(body, User.class, this::validateConstraints, users -> {
+                userStorage.addUsers(users);
+                return Map.of();
+            });
+        } finally {
+            versions.allUsersChanged();
+        }
+    }
+
+    public BulkResult importLikes(InputStream body) throws IOException {
+        try {
+            return ingest(body, Like.class, this::validateLike, this::writeLikes);
+        } finally {
+            versions.allFilmsChanged();
+        }
+    }
+
+    public BulkResult importFriendships(InputStream body) throws IOException {
+        try {
+            return ingest(body, Friendship.class, this::validateFriendship, this::writeFriendships);
+        } finally {
+            versions.allUsersChanged();
+        }
+    }
+
+    private Map<Integer, String> writeLikes(List<Like> likes) {
+        Set<Integer> films = filmStorage.findExistingFilmIds(likes.stream()
+                .map(like -> like.getFilmId().intValue())
+                .collect(Collectors.toSet()));
+        Set<Integer> users = userStorage.findExistingUserIds(likes.stream()
+                .map(like -> like.getUserId().intValue())
+                .collect(Collectors.toSet()));
+
+        Map<Integer, String> errors = new HashMap<>();
+        List<Like> validLikes = new ArrayList<>();
+        for (int i = 0; i < likes.size(); i++) {
+            Like like = likes.get(i);
+            if (!films.contains(like.getFilmId().intValue())) {
+                errors.put(i, "Фильм с id " + like.getFilmId() + " не найден");
+            } else if (!users.contains(like.getUserId().intValue())) {
+                errors.put(i, "Пользователь с id " + like.getUserId() + " не найден");
+            } else {
+                validLikes.add(like);
+            }
+        }
+        filmStorage.addLikes(validLikes);
+        return errors;
+    }
+
+    private Map<Integer, String> writeFriendships(List<Friendship> friendships) {
+        Set<Integer> userIds = new HashSet<>();
+        friendships.forEach(friendship -> {
+            userIds.add(friendship.getUserId());
+            userIds.add(friendship.getFriendId());
+        });
+        Set<Integer> users = userStorage.findExistingUserIds(userIds);
+
+        Map<Integer, String> errors = new HashMap<>();
+        List<Friendship> validFriendships = new ArrayList<>();
+        for (int i = 0; i < friendships.size(); i++) {
+            Friendship friendship = friendships.get(i);
+            if (!users.contains(friendship.getUserId())) {
+                errors.put(i, "Пользователь с id " + friendship.getUserId() + " не найден");
+            } else if (!users.contains(friendship.getFriendId())) {
+                errors.put(i, "Пользователь с id " + friendship.getFriendId() + " не найден");
+            } else {
+                validFriendships.add(friendship);
+            }
+        }
+        userStorage.addFriends(validFriendships);
+        return errors;
+    }
+
+    private String validateFilm(Film film) {
+        String error = validateConstraints(film);
+        if (error != null) {
+            return error;
+        }
+        if (film.getReleaseDate().isBefore(FIRST_FILM_DATE)) {
+            return "Дата выхода фильма должна быть позже 28 декабря 1895 года";
+        }
+        if (film.getMpaId() == null || mpaStorage.getMpaById(film.getMpaId()).isEmpty()) {
+            return "Рейтинг MPA с ID " + film.getMpaId() + " не существует";
+        }
+        if (film.getGenres() == null) {
+            film.setGenres(new HashSet<>());
+        }
+        try {
+            for (Genre genre : film.getGenres()) {
+                genreStorage.getGenreById(genre.getId());
+            }
+        } catch (GenreNotFoundException e) {
+            return e.getMessage();
+        }
+        return null;
+    }
+
+    private String validateLike(Like like) {
+        if (like.getFilmId() == null || like.getUserId() == null) {
+            return "Не указан id фильма или пользователя";
+        }
+        return null;
+    }
+
+    private String validateFriendship(Friendship friendship) {
+        if (friendship.getUserId() == null || friendship.getFriendId() == null) {
+            return "Не указан id пользователя или друга";
+        }
+        if (friendship.getUserId().equals(friendship.getFriendId())) {
+            return "Нельзя добавить себя в друзья";
+        }
+        return null;
+    }
+
+    private <T> String validateConstraints(T row) {
+        Set<ConstraintViolation<T>> violations = validator.validate(row);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    private <T> BulkResult ingest(InputStream body, Class<T> type, Function<T, String> rowValidator,
+                                  ChunkWriter<T> writer) throws IOException {
+        BulkResult result = new BulkResult();
+        List<T> chunk = new ArrayList<>(CHUNK_SIZE);
+        List<Integer> chunkIndexes = new ArrayList<>(CHUNK_SIZE);
+        int index = 0;
+
+        try (MappingIterator<T> rows = objectMapper.readerFor(type).readValues(body)) {
+            while (true) {
+                T row;
+                try {
+                    if (!rows.hasNextValue()) {
+                        break;
+                    }
+                    row = rows.nextValue();
+                } catch (JsonParseException e) {
+                    // После синтаксической ошибки дальше читать поток нельзя
+                    result.reject(index, "Некорректный JSON: " + e.getOriginalMessage());
+                    break;
+                } catch (JsonMappingException e) {
+                    result.reject(index++, "Некорректная запись: " + e.getOriginalMessage());
+                    continue;
+                }
+
+                String error = row == null ? "Пустая запись" : rowValidator.apply(row);
+                if (error != null) {
+                    result.reject(index, error);
+                } else {
+                    chunk.add(row);
+                    chunkIndexes.add(index);
+                }
+                index++;
+
+                if (chunk.size() == CHUNK_SIZE) {
+                    writeChunk(chunk, chunkIndexes, writer, result);
+                }
+            }
+        }
+        writeChunk(chunk, chunkIndexes, writer, result);
+
+        log.info("Массовая загрузка {}: принято {}, отклонено {}", type.getSimpleName(), result.getAccepted(), result.getRejected());
+        return result;
+    }
+
+    private <T> void writeChunk(List<T> chunk, List<Integer> chunkIndexes, ChunkWriter<T> writer, BulkResult result) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        List<T> rows = new ArrayList<>(chunk);
+        List<Integer> indexes = new ArrayList<>(chunkIndexes);
+        chunk.clear();
+        chunkIndexes.clear();
+
+        try {
+            Map<Integer, String> errors = transactionTemplate.execute(status -> writer.write(rows));
+            errors.forEach((position, message) -> result.reject(indexes.get(position), message));
+            result.accept(rows.size() - errors.size());
+        } catch (RuntimeException e) {
+            log.warn("Пачка из {} записей не записана: {}", rows.size(), e.getMessage());
+            indexes.forEach(index -> result.reject(index, "Пачка не записана: " + e.getMessage()));
+        }
+    }
+
+    @FunctionalInterface
+    private interface ChunkWriter<T> {
+        // Возвращает ошибки по позиции записи внутри пачки
+        Map<Integer, String> write(List<T> rows);
+    }
+}
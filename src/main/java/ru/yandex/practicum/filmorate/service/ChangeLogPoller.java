@@ -0,0 +1,143 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.dao.ChangeLog;
+import ru.yandex.practicum.filmorate.storage.Change;
+import ru.yandex.practicum.filmorate.storage.ChangeListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Опрос журнала change_log: изменения других экземпляров передаются хранилищам и версиям,
+ * чтобы рейтинги, индексы, граф друзей и кэши в памяти не расходились с базой.
+ * <p>
+ * Значения seq выдаются при вставке, а видны после фиксации, поэтому запись с меньшим seq может появиться
+ * позже записей с большим. Пропущенные номера перечитываются, пока не появятся или не истечёт gap-timeout
+ * (номер мог пропасть из-за отката транзакции). Внутри одного опроса изменения передаются по порядку seq,
+ * но запоздавший номер из пропуска применяется после более новых изменений, переданных раньше. Обработчики
+ * на это рассчитаны: при изменении фильма или пользователя состояние перечитывается из базы, а не берётся
+ * из записи журнала; счётчики лайков известных фильмов складываются в любом порядке, а лайки фильма, которого
+ * нет в рейтинге, пропускаются — фильм уже удалён или его счётчик будет прочитан из базы вместе с созданием.
+ * Лайк, зафиксированный между чтением журнала и чтением счётчика нового фильма, может быть учтён дважды.
+ * Опрос начинается с последнего seq на момент запуска:
+ * изменения, зафиксированные между загрузкой индексов и запуском опроса, не применяются,
+ * такие расхождения исправляет сверка счётчиков лайков и истечение записей кэша.
+ */
+@Slf4j
+@Component
+public class ChangeLogPoller {
+    // Слишком большой разрыв означает очистку журнала, а не незафиксированные транзакции
+    private static final int MAX_TRACKED_GAP = 1000;
+
+    private final ChangeLog changeLog;
+    private final List<ChangeListener> listeners;
+    private final int batchSize;
+    private final Duration gapTimeout;
+    private final Duration retention;
+    private final TreeMap<Long, Long> pendingGaps = new TreeMap<>();
+    // Не synchronized: опрос ходит в базу, а при профиле virtual задачи @Scheduled идут в виртуальных потоках
+    private final Lock pollLock = new ReentrantLock();
+    private long position;
+
+    public ChangeLogPoller(ChangeLog changeLog, List<ChangeListener> listeners,
+                           @Value("${filmorate.change-log.batch-size:1000}") int batchSize,
+                           @Value("${filmorate.change-log.gap-timeout:30s}") Duration gapTimeout,
+                           @Value("${filmorate.change-log.retention:1d}") Duration retention) {
+        this.changeLog = changeLog;
+        this.listeners = listeners;
+        this.batchSize = batchSize;
+        this.gapTimeout = gapTimeout;
+        this.retention = retention;
+        this.position = changeLog.lastSeq();
+    }
+
+    @Scheduled(fixedDelayString = "${filmorate.change-log.poll-interval-ms:1000}")
+    public void poll() {
+        pollLock.lock();
+        try {
+            pollChanges();
+        } finally {
+            pollLock.unlock();
+        }
+    }
+
+    private void pollChanges() {
+        List<Change> changes = new ArrayList<>(changeLog.readSeqs(pendingGaps.keySet()));
+        changes.forEach(change -> pendingGaps.remove(change.seq()));
+        expireGaps();
+
+        List<Change> batch;
+        do {
+            batch = changeLog.readAfter(position, batchSize);
+            for (Change change : batch) {
+                trackGap(change.seq());
+                position = change.seq();
+            }
+            changes.addAll(batch);
+        } while (batch.size() == batchSize);
+
+        List<Change> foreign = changes.stream()
+                .filter(change -> !change.nodeId().equals(changeLog.getNodeId()))
+                .sorted(Comparator.comparingLong(Change::seq))
+                .toList();
+        if (!foreign.isEmpty()) {
+            dispatch(foreign);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${filmorate.change-log.cleanup-interval-ms:3600000}")
+    public void cleanup() {
+        int deleted = changeLog.deleteOlderThan(Instant.now().minus(retention));
+        if (deleted > 0) {
+            log.info("Из журнала изменений удалено записей: {}", deleted);
+        }
+    }
+
+    private void trackGap(long seq) {
+        long missing = seq - position - 1;
+        if (missing <= 0) {
+            return;
+        }
+        if (missing > MAX_TRACKED_GAP) {
+            log.warn("Пропуск в журнале изменений между {} и {} не отслеживается", position, seq);
+            return;
+        }
+        long deadline = System.nanoTime() + gapTimeout.toNanos();
+        for (long gap = position + 1; gap < seq; gap++) {
+            pendingGaps.put(gap, deadline);
+        }
+    }
+
+    private void expireGaps() {
+        long now = System.nanoTime();
+        Iterator<Map.Entry<Long, Long>> iterator = pendingGaps.entrySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().getValue() - now < 0) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private void dispatch(List<Change> changes) {
+        log.debug("Изменения других экземпляров: {}", changes.size());
+        for (ChangeListener listener : listeners) {
+            try {
+                listener.onChanges(changes);
+            } catch (RuntimeException e) {
+                log.error("Не удалось применить изменения в {}", listener.getClass().getSimpleName(), e);
+            }
+        }
+    }
+}
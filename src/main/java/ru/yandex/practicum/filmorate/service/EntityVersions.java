@@ -0,0 +1,110 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.Change;
+import ru.yandex.practicum.filmorate.storage.ChangeListener;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Версии сущностей для условных GET-запросов (ETag / If-None-Match, Last-Modified / If-Modified-Since).
+ * Версия — номер из общей возрастающей последовательности, присвоенный при последней записи.
+ * Сервисы повышают версию после того, как изменение записано в базу, а контроллеры читают версию
+ * до загрузки данных: так клиент может получить старый тег с новыми данными, но не наоборот.
+ * <p>
+ * Версии живут в памяти процесса, поэтому в тег входит время запуска: после перезапуска
+ * все ранее выданные теги считаются устаревшими.
+ */
+@Component
+public class EntityVersions implements ChangeListener {
+    private final String instance = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong sequence = new AtomicLong();
+    private final Version initial = next();
+    private final Map<Integer, Version> films = new ConcurrentHashMap<>();
+    private final Map<Integer, Version> users = new ConcurrentHashMap<>();
+    // Изменения, затрагивающие все фильмы или всех пользователей сразу (массовая загрузка, сверка счётчиков)
+    private volatile Version allFilms = initial;
+    private volatile Version allUsers = initial;
+    // Любое изменение фильма или лайка: от него зависят списки фильмов и рейтинг
+    private volatile Version filmCollection = initial;
+    private volatile Version referenceData = initial;
+
+    /**
+     * Фильм содержит названия жанров и MPA, поэтому его версия учитывает и версию справочников.
+     */
+    public Version film(int id) {
+        return latest(latest(films.getOrDefault(id, initial), allFilms), referenceData);
+    }
+
+    public Version user(int id) {
+        return latest(users.getOrDefault(id, initial), allUsers);
+    }
+
+    public Version filmCollection() {
+        return latest(latest(filmCollection, allFilms), referenceData);
+    }
+
+    public Version referenceData() {
+        return referenceData;
+    }
+
+    public void filmChanged(int id) {
+        Version version = next();
+        films.put(id, version);
+        filmCollection = version;
+    }
+
+    public void allFilmsChanged() {
+        Version version = next();
+        allFilms = version;
+        filmCollection = version;
+    }
+
+    public void userChanged(int id) {
+        users.put(id, next());
+    }
+
+    public void allUsersChanged() {
+        allUsers = next();
+    }
+
+    public void referenceDataChanged() {
+        referenceData = next();
+    }
+
+    /**
+     * Изменения других экземпляров тоже повышают версии, иначе клиент получил бы 304 на устаревшие данные.
+     */
+    @Override
+    public void onChanges(List<Change> changes) {
+        for (Change change : changes) {
+            switch (change.kind()) {
+                case FILM_CREATED, FILM_UPDATED, FILM_DELETED, LIKE_ADDED, LIKE_REMOVED -> filmChanged(change.entityId());
+                case LIKES_REPAIRED -> allFilmsChanged();
+                case USER_CREATED, USER_UPDATED, USER_DELETED, FRIEND_ADDED, FRIEND_REMOVED -> userChanged(change.entityId());
+                case REFERENCE_RELOADED -> referenceDataChanged();
+            }
+        }
+    }
+
+    /**
+     * Сильный ETag ресурса: вид ресурса, его ключ и версия.
+     */
+    public String etag(String resource, Version version) {
+        return "\"" + resource + "-" + instance + "-" + version.sequence() + "\"";
+    }
+
+    private Version next() {
+        return new Version(sequence.incrementAndGet(), System.currentTimeMillis());
+    }
+
+    private static Version latest(Version first, Version second) {
+        return first.sequence() >= second.sequence() ? first : second;
+    }
+
+    public record Version(long sequence, long modifiedAt) {
+    }
+}
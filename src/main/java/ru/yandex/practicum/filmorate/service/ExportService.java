@@ -0,0 +1,72 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.storage.ExportStorage;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Выгрузка данных в формате NDJSON: по одному JSON-объекту на строку,
+ * объекты пишутся потоковым генератором Jackson по мере чтения из базы.
+ */
+@Service
+public class ExportService {
+    private static final int FLUSH_EVERY_ROWS = 1000;
+
+    private final ExportStorage exportStorage;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter rowWriter;
+
+    public ExportService(ExportStorage exportStorage, ObjectMapper objectMapper) {
+        this.exportStorage = exportStorage;
+        this.objectMapper = objectMapper;
+        this.rowWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    public void exportFilms(OutputStream out) throws IOException {
+        writeNdjson(out, exportStorage::exportFilms);
+    }
+
+    public void exportUsers(OutputStream out) throws IOException {
+        writeNdjson(out, exportStorage::exportUsers);
+    }
+
+    public void exportLikes(OutputStream out) throws IOException {
+        writeNdjson(out, exportStorage::exportLikes);
+    }
+
+    public void exportFriendships(OutputStream out) throws IOException {
+        writeNdjson(out, exportStorage::exportFriendships);
+    }
+
+    private <T> void writeNdjson(OutputStream out, Consumer<Consumer<T>> export) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            int[] rows = new int[1];
+            try {
+                export.accept(row -> {
+                    try {
+                        rowWriter.writeValue(generator, row);
+                        generator.writeRaw('\n');
+                        if (++rows[0] % FLUSH_EVERY_ROWS == 0) {
+                            generator.flush();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                // Клиент закрыл соединение: прерываем чтение курсора
+                throw e.getCause();
+            }
+        }
+    }
+}
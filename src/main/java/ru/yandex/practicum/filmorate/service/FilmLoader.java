@@ -0,0 +1,12 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+@Component
+public class FilmLoader extends RequestBatchLoader<Film> {
+    public FilmLoader(FilmStorage filmStorage) {
+        super(filmStorage::getFilmsByIds, Film::getId);
+    }
+}
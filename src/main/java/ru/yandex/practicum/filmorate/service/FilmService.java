@@ -3,72 +3,93 @@ package ru.yandex.practicum.filmorate.service;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
+import ru.yandex.practicum.filmorate.model.CursorPage;
 import ru.yandex.practicum.filmorate.model.Film;
-import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.storage.FilmStorage;
-import ru.yandex.practicum.filmorate.storage.UserStorage;
-import ru.yandex.practicum.filmorate.storage.MpaStorage;
-import ru.yandex.practicum.filmorate.storage.GenreStorage;
 
 import java.time.LocalDate;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class FilmService {
-    private final FilmStorage filmStorage;
-    private final UserStorage userStorage;
-    private final MpaStorage mpaStorage;
-    private final GenreStorage genreStorage;
+    private static final int MAX_IDS_PER_REQUEST = 1000;
+    private static final int MAX_RECOMMENDATIONS = 100;
+    private static final int MAX_SEARCH_RESULTS = 100;
+    private static final int MAX_SEARCH_QUERY_LENGTH = 200;
+    private static final double SEARCH_POPULARITY_WEIGHT = 0.1;
 
+    private final FilmStorage filmStorage;
+    private final FilmLoader filmLoader;
+    private final UserLoader userLoader;
+    private final Optional<LikeWriteBehindPipeline> likePipeline;
+    private final EntityVersions versions;
 
     public Film addFilm(Film film) {
         isValidReleaseDate(film);
-        return filmStorage.addFilm(film);
+        Film created = filmStorage.addFilm(film);
+        versions.filmChanged(created.getId());
+        return created;
     }
 
     public Film updateFilm(Film film) {
-        if (!filmStorage.getFilmById(film.getId()).isPresent()) {
+        if (filmLoader.load(film.getId()).isEmpty()) {
             throw new NotFoundException("Фильм с id " + film.getId() + " не найден");
         }
         isValidReleaseDate(film);
-        return filmStorage.updateFilm(film);
+        filmLoader.clear(film.getId());
+        Film updated = filmStorage.updateFilm(film);
+        versions.filmChanged(film.getId());
+        return updated;
     }
 
     public Collection<Film> getAllFilms() {
         return filmStorage.getAllFilms();
     }
 
+    public CursorPage<Film> getFilmsPage(Integer after, int limit) {
+        if (limit < 1 || limit > CursorPage.MAX_LIMIT) {
+            throw new IllegalArgumentException("Размер страницы должен быть от 1 до " + CursorPage.MAX_LIMIT);
+        }
+        // Запрашиваем на одну строку больше, чтобы понять, есть ли следующая страница
+        List<Film> films = filmStorage.getFilmsPage(after != null ? after : 0, limit + 1);
+        return CursorPage.of(films, limit, Film::getId);
+    }
+
     public Film getFilmById(Integer id) {
-        Film film = filmStorage.getFilmById(id)
+        return filmLoader.load(id)
                 .orElseThrow(() -> new NotFoundException("Фильм с id " + id + " не найден"));
-        film.setMpa(mpaStorage.getMpaById(film.getMpaId())
-                .orElseThrow(() -> new NotFoundException("MPA с id " + film.getMpaId() + " не найден")));
+    }
 
-        Set<Genre> filmGenres = new HashSet<>();
-        for (Integer genreId : film.getGenres().stream().map(Genre::getId).collect(Collectors.toSet())) {
-            Genre foundGenre = genreStorage.getGenreById(genreId);
-            if (foundGenre != null) {
-                filmGenres.add(foundGenre);
-            }
+    public List<Film> getFilmsByIds(List<Integer> ids) {
+        if (ids.size() > MAX_IDS_PER_REQUEST) {
+            throw new IllegalArgumentException("Можно запросить не более " + MAX_IDS_PER_REQUEST + " фильмов");
         }
-        film.setGenres(filmGenres);
-        return film;
+        return new ArrayList<>(filmLoader.loadMany(ids).values());
     }
 
-    public Film addLike(Integer filmId, Integer userId) {
-        userStorage.getUserById(userId);
-        Film film = getFilmById(filmId);
+    public void addLike(Integer filmId, Integer userId) {
+        requireUser(userId);
+        requireFilm(filmId);
+        if (likePipeline.isPresent()) {
+            likePipeline.get().submit(filmId, userId, true);
+            return;
+        }
         filmStorage.addLike(filmId, userId);
-        return film;
+        filmLoader.clear(filmId);
+        versions.filmChanged(filmId);
     }
 
-    public Film removeLike(Integer filmId, Integer userId) {
-        userStorage.getUserById(userId);
-        Film film = getFilmById(filmId);
+    public void removeLike(Integer filmId, Integer userId) {
+        requireUser(userId);
+        requireFilm(filmId);
+        if (likePipeline.isPresent()) {
+            likePipeline.get().submit(filmId, userId, false);
+            return;
+        }
         filmStorage.removeLike(filmId, userId);
-        return film;
+        filmLoader.clear(filmId);
+        versions.filmChanged(filmId);
     }
 
     public List<Film> getTopFilms(int count) {
@@ -79,6 +100,61 @@ public class FilmService {
         return filmStorage.getTopFilms(count);
     }
 
+    public List<Film> getPopularFilms(int count, Integer genreId, Integer year, Integer mpaId) {
+        if (genreId == null && year == null && mpaId == null) {
+            return getTopFilms(count);
+        }
+        if (count < 1) {
+            throw new IllegalArgumentException("Количество фильмов должно быть больше нуля.");
+        }
+
+        return filmStorage.getPopularFilms(count, genreId, year, mpaId);
+    }
+
+    public List<Film> searchFilms(String query, int limit, boolean popularityBoost) {
+        if (limit < 1 || limit > MAX_SEARCH_RESULTS) {
+            throw new IllegalArgumentException("Количество результатов поиска должно быть от 1 до " + MAX_SEARCH_RESULTS);
+        }
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("Поисковый запрос не может быть пустым");
+        }
+        if (query.length() > MAX_SEARCH_QUERY_LENGTH) {
+            throw new IllegalArgumentException("Поисковый запрос не может быть длиннее " + MAX_SEARCH_QUERY_LENGTH + " символов");
+        }
+
+        return filmStorage.searchFilms(query, limit, popularityBoost ? SEARCH_POPULARITY_WEIGHT : 0);
+    }
+
+    public List<Film> getRecommendations(Integer userId, int limit) {
+        if (limit < 1 || limit > MAX_RECOMMENDATIONS) {
+            throw new IllegalArgumentException("Количество рекомендаций должно быть от 1 до " + MAX_RECOMMENDATIONS);
+        }
+        requireUser(userId);
+
+        return filmStorage.getRecommendations(userId, limit);
+    }
+
+    public int repairLikeCounts() {
+        int repaired = filmStorage.repairLikeCounts();
+        if (repaired > 0) {
+            versions.allFilmsChanged();
+        }
+        return repaired;
+    }
+
+    private void requireUser(Integer userId) {
+        if (userLoader.load(userId).isEmpty()) {
+            throw new NotFoundException("Пользователь с id " + userId + " не найден");
+        }
+    }
+
+    private void requireFilm(Integer filmId) {
+        // Проверка по индексу в памяти, без загрузки жанров и MPA
+        if (filmStorage.findExistingFilmIds(Set.of(filmId)).isEmpty()) {
+            throw new NotFoundException("Фильм с id " + filmId + " не найден");
+        }
+    }
+
     private void isValidReleaseDate(Film film) {
         if (film.getReleaseDate() != null && film.getReleaseDate().isBefore(LocalDate.of(1895, 12, 28))) {
             throw new IllegalArgumentException("Дата выхода фильма должна быть позже 28 декабря 1895 года");
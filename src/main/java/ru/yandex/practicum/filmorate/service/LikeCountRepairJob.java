@@ -0,0 +1,25 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Периодическая сверка films.likes_count с film_likes. Расписание задаётся свойством
+ * filmorate.likes.repair-cron, по умолчанию выключено.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LikeCountRepairJob {
+    private final FilmService filmService;
+
+    @Scheduled(cron = "${filmorate.likes.repair-cron:-}")
+    public void repair() {
+        int repaired = filmService.repairLikeCounts();
+        if (repaired > 0) {
+            log.warn("Исправлены счётчики лайков у {} фильмов", repaired);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package ru.yandex.practicum.filmorate.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.exceptions.ServiceOverloadedException;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Отложенная запись лайков. Запросы складываются в ограниченную очередь, где изменения одной пары
+ * (фильм, пользователь) схлопываются — в базу попадает только последнее состояние.
+ * Очередь сбрасывается пачками при наборе batch-size записей или по истечении flush-interval.
+ * Если очередь заполнена, запрос ждёт не дольше offer-timeout и получает 503.
+ * Рейтинг и рекомендации видят лайк только после сброса пачки.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "filmorate.likes.write-behind.enabled", havingValue = "true")
+public class LikeWriteBehindPipeline {
+    private final FilmStorage filmStorage;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityVersions versions;
+    private final int capacity;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final long offerTimeoutNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private final Condition batchReady = lock.newCondition();
+    private final Thread flusher;
+    private Map<Like, Boolean> pending = new LinkedHashMap<>();
+    private boolean running = true;
+
+    public LikeWriteBehindPipeline(FilmStorage filmStorage,
+                                   TransactionTemplate transactionTemplate,
+                                   EntityVersions versions,
+                                   @Value("${filmorate.likes.write-behind.capacity:100000}") int capacity,
+                                   @Value("${filmorate.likes.write-behind.batch-size:1000}") int batchSize,
+                                   @Value("${filmorate.likes.write-behind.flush-interval:200ms}") Duration flushInterval,
+                                   @Value("${filmorate.likes.write-behind.offer-timeout:1s}") Duration offerTimeout) {
+        this.filmStorage = filmStorage;
+        this.transactionTemplate = transactionTemplate;
+        this.versions = versions;
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.offerTimeoutNanos = offerTimeout.toNanos();
+        this.flusher = new Thread(this::runFlusher, "like-write-behind");
+        this.flusher.start();
+        log.info("Включена отложенная запись лайков: очередь {}, пачка {}, интервал {}", capacity, batchSize, flushInterval);
+    }
+
+    /**
+     * Ставит лайк (liked = true) или его удаление в очередь.
+     */
+    public void submit(int filmId, int userId, boolean liked) {
+        Like key = new Like((long) filmId, (long) userId);
+        lock.lock();
+        try {
+            long nanos = offerTimeoutNanos;
+            // Изменение уже ожидающей пары места в очереди не занимает
+            while (running && !pending.containsKey(key) && pending.size() >= capacity) {
+                if (nanos <= 0) {
+                    throw new ServiceOverloadedException("Очередь лайков заполнена, повторите запрос позже");
+                }
+                nanos = notFull.awaitNanos(nanos);
+            }
+            if (!running) {
+                throw new ServiceOverloadedException("Приложение останавливается, лайки не принимаются");
+            }
+            pending.put(key, liked);
+            if (pending.size() >= batchSize) {
+                batchReady.signal();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceOverloadedException("Ожидание места в очереди лайков прервано");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getPendingCount() {
+        lock.lock();
+        try {
+            return pending.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Останавливает приём лайков и дописывает в базу всё, что осталось в очереди.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        lock.lock();
+        try {
+            running = false;
+            batchReady.signal();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        flusher.join(TimeUnit.SECONDS.toMillis(30));
+        if (flusher.isAlive()) {
+            log.error("Не удалось дописать очередь лайков при остановке, осталось записей: {}", getPendingCount());
+        }
+    }
+
+    private void runFlusher() {
+        while (true) {
+            Map<Like, Boolean> batch;
+            lock.lock();
+            try {
+                if (running && pending.size() < batchSize) {
+                    batchReady.awaitNanos(flushIntervalNanos);
+                }
+                if (pending.isEmpty()) {
+                    if (!running) {
+                        return;
+                    }
+                    continue;
+                }
+                batch = pending;
+                pending = new LinkedHashMap<>();
+                notFull.signalAll();
+            } catch (InterruptedException e) {
+                // Поток сброса не прерывается извне, при остановке используется флаг running
+                continue;
+            } finally {
+                lock.unlock();
+            }
+            flush(batch);
+        }
+    }
+
+    private void flush(Map<Like, Boolean> batch) {
+        List<Map.Entry<Like, Boolean>> entries = new ArrayList<>(batch.entrySet());
+        for (int from = 0; from < entries.size(); from += batchSize) {
+            List<Map.Entry<Like, Boolean>> chunk = entries.subList(from, Math.min(from + batchSize, entries.size()));
+            try {
+                write(chunk);
+            } catch (RuntimeException e) {
+                // Например, фильм или пользователь удалён, пока лайк ждал в очереди: пишем по одному
+                log.warn("Не удалось записать пачку лайков из {} записей, запись по одной: {}", chunk.size(), e.getMessage());
+                for (Map.Entry<Like, Boolean> entry : chunk) {
+                    try {
+                        write(List.of(entry));
+                    } catch (RuntimeException single) {
+                        log.error("Лайк {} отброшен: {}", entry.getKey(), single.getMessage());
+                    }
+                }
+            }
+        }
+    }
+
+    private void write(List<Map.Entry<Like, Boolean>> chunk) {
+        List<Like> added = new ArrayList<>();
+        List<Like> removed = new ArrayList<>();
+        chunk.forEach(entry -> (entry.getValue() ? added : removed).add(entry.getKey()));
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!added.isEmpty()) {
+                filmStorage.addLikes(added);
+            }
+            if (!removed.isEmpty()) {
+                filmStorage.removeLikes(removed);
+            }
+        });
+        // Клиенты видят новую версию фильма только после записи лайка
+        chunk.forEach(entry -> versions.filmChanged(entry.getKey().getFilmId().intValue()));
+    }
+}
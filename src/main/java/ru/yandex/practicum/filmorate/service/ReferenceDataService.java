@@ -0,0 +1,21 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.dao.ChangeLog;
+import ru.yandex.practicum.filmorate.dao.ReferenceDataRegistry;
+import ru.yandex.practicum.filmorate.storage.Change;
+
+@Service
+@RequiredArgsConstructor
+public class ReferenceDataService {
+    private final ReferenceDataRegistry referenceData;
+    private final EntityVersions versions;
+    private final ChangeLog changeLog;
+
+    public void reload() {
+        referenceData.reload();
+        changeLog.append(Change.Kind.REFERENCE_RELOADED, 0);
+        versions.referenceDataChanged();
+    }
+}
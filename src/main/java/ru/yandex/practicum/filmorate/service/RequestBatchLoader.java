@@ -0,0 +1,77 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Загрузчик сущностей в духе DataLoader: в рамках одного HTTP-запроса запоминает уже загруженные
+ * сущности и догружает недостающие одним пакетным запросом. Вне HTTP-запроса работает без кэша.
+ */
+public abstract class RequestBatchLoader<T> {
+    private final String attributeName = getClass().getName();
+    private final Function<Collection<Integer>, List<T>> batchLoader;
+    private final Function<T, Integer> idExtractor;
+
+    protected RequestBatchLoader(Function<Collection<Integer>, List<T>> batchLoader, Function<T, Integer> idExtractor) {
+        this.batchLoader = batchLoader;
+        this.idExtractor = idExtractor;
+    }
+
+    public Optional<T> load(Integer id) {
+        return Optional.ofNullable(loadMany(List.of(id)).get(id));
+    }
+
+    /**
+     * Возвращает найденные сущности в порядке запрошенных id, отсутствующие id пропускаются.
+     */
+    public Map<Integer, T> loadMany(Collection<Integer> ids) {
+        Map<Integer, Optional<T>> cache = requestCache();
+        Set<Integer> missing = new LinkedHashSet<>();
+        for (Integer id : ids) {
+            if (!cache.containsKey(id)) {
+                missing.add(id);
+            }
+        }
+        if (!missing.isEmpty()) {
+            Map<Integer, T> loaded = new HashMap<>();
+            batchLoader.apply(missing).forEach(entity -> loaded.put(idExtractor.apply(entity), entity));
+            missing.forEach(id -> cache.put(id, Optional.ofNullable(loaded.get(id))));
+        }
+
+        Map<Integer, T> result = new LinkedHashMap<>();
+        ids.forEach(id -> cache.get(id).ifPresent(entity -> result.put(id, entity)));
+        return result;
+    }
+
+    public void prime(T entity) {
+        requestCache().put(idExtractor.apply(entity), Optional.of(entity));
+    }
+
+    public void clear(Integer id) {
+        requestCache().remove(id);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Integer, Optional<T>> requestCache() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return new HashMap<>();
+        }
+        Object cache = attributes.getAttribute(attributeName, RequestAttributes.SCOPE_REQUEST);
+        if (cache == null) {
+            cache = new HashMap<Integer, Optional<T>>();
+            attributes.setAttribute(attributeName, cache, RequestAttributes.SCOPE_REQUEST);
+        }
+        return (Map<Integer, Optional<T>>) cache;
+    }
+}
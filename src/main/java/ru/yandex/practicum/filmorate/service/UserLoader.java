@@ -0,0 +1,12 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+@Component
+public class UserLoader extends RequestBatchLoader<User> {
+    public UserLoader(UserStorage userStorage) {
+        super(userStorage::getUsersByIds, User::getId);
+    }
+}
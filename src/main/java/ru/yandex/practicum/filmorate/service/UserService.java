@@ -4,6 +4,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
+import ru.yandex.practicum.filmorate.model.CursorPage;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.UserStorage;
 
@@ -13,34 +14,58 @@ import java.util.*;
 @Service
 @RequiredArgsConstructor
 public class UserService {
+    private static final int MAX_IDS_PER_REQUEST = 1000;
+    private static final int MAX_SUGGESTIONS = 100;
+
     private final UserStorage userStorage;
+    private final UserLoader userLoader;
+    private final EntityVersions versions;
 
     public User addUser(User user) {
-        return userStorage.addUser(user);
+        User created = userStorage.addUser(user);
+        userLoader.prime(created);
+        versions.userChanged(created.getId());
+        return created;
     }
 
     public User updateUser(User user) {
-        if (!userStorage.getUserById(user.getId()).isPresent()) {
+        if (userLoader.load(user.getId()).isEmpty()) {
             throw new NotFoundException("Пользователь не найден с ID: " + user.getId());
         }
-        return userStorage.updateUser(user);
+        userLoader.clear(user.getId());
+        User updated = userStorage.updateUser(user);
+        versions.userChanged(user.getId());
+        return updated;
     }
 
     public User getUserById(int id) {
-        return userStorage.getUserById(id)
+        return userLoader.load(id)
                 .orElseThrow(() -> new NotFoundException("Пользователь с id " + id + " не найден"));
 
     }
 
+    public List<User> getUsersByIds(List<Integer> ids) {
+        if (ids.size() > MAX_IDS_PER_REQUEST) {
+            throw new IllegalArgumentException("Можно запросить не более " + MAX_IDS_PER_REQUEST + " пользователей");
+        }
+        return new ArrayList<>(userLoader.loadMany(ids).values());
+    }
+
     public Collection<User> getAllUsers() {
         return userStorage.getAllUsers();
     }
 
+    public CursorPage<User> getUsersPage(Integer after, int limit) {
+        if (limit < 1 || limit > CursorPage.MAX_LIMIT) {
+            throw new IllegalArgumentException("Размер страницы должен быть от 1 до " + CursorPage.MAX_LIMIT);
+        }
+        // Запрашиваем на одну строку больше, чтобы понять, есть ли следующая страница
+        List<User> users = userStorage.getUsersPage(after != null ? after : 0, limit + 1);
+        return CursorPage.of(users, limit, User::getId);
+    }
+
     public User addFriend(Integer userId, Integer friendId) {
-        User user = userStorage.getUserById(userId)
-                .orElseThrow(() -> new NotFoundException("Пользователь с ID " + userId + " не найден"));
-        User friend = userStorage.getUserById(friendId)
-                .orElseThrow(() -> new NotFoundException("Пользователь с ID " + friendId + " не найден"));
+        User user = requireUsers(userId, friendId).get(userId);
 
         // Проверка, не является ли пользователь самим собой
         if (userId.equals(friendId)) {
@@ -48,6 +73,7 @@ public class UserService {
         }
 
         userStorage.addFriend(userId, friendId);
+        versions.userChanged(userId);
         log.info("Пользователь с ID {} добавил в друзья пользователя с ID {}", userId, friendId);
 
         return user;
@@ -55,17 +81,13 @@ public class UserService {
 
 
     public void removeFriend(Integer userId, Integer friendId) {
-        User user = userStorage.getUserById(userId)
-                .orElseThrow(() -> new NotFoundException("Пользователь с ID " + userId + " не найден"));
-
-        User friend = userStorage.getUserById(friendId)
-                .orElseThrow(() -> new NotFoundException("Пользователь с ID " + friendId + " не найден"));
+        requireUsers(userId, friendId);
 
-        Collection<User> userFriends = userStorage.getUserFriends(userId);
-
-        if (userFriends != null && userFriends.stream().anyMatch(u -> u.getId().equals(friendId))) {
+        // Проверка по графу дружбы в памяти, без загрузки всего списка друзей
+        if (userStorage.hasFriend(userId, friendId)) {
             log.info("Пользователь с ID {} удалил из друзей пользователя с ID {}", userId, friendId);
             userStorage.removeFriend(userId, friendId);
+            versions.userChanged(userId);
             return;
         } else {
             log.warn("Друг с ID {} не найден у пользователя с ID {}", friendId, userId);
@@ -74,19 +96,39 @@ public class UserService {
     }
 
     public Collection<User> getFriends(Integer userId) {
-        User user = userStorage.getUserById(userId)
-                .orElseThrow(() -> new NotFoundException("Пользователь с ID " + userId + " не найден."));
+        requireUsers(userId);
         log.info("Получаем друзей для пользователя с ID: {}", userId);
 
-        return userStorage.getUserFriends(userId);
+        Collection<User> friends = userStorage.getUserFriends(userId);
+        friends.forEach(userLoader::prime);
+        return friends;
     }
 
     public Collection<User> getCommonFriends(Integer userId1, Integer userId2) {
-        User user1 = userStorage.getUserById(userId1)
-                .orElseThrow(() -> new NotFoundException("Пользователь с ID " + userId1 + " не найден."));
-        User user2 = userStorage.getUserById(userId2)
-                .orElseThrow(() -> new NotFoundException("Пользователь с ID " + userId2 + " не найден."));
+        requireUsers(userId1, userId2);
 
         return userStorage.getCommonFriends(userId1, userId2);
     }
+
+    public List<User> getFriendSuggestions(Integer userId, int limit) {
+        if (limit < 1 || limit > MAX_SUGGESTIONS) {
+            throw new IllegalArgumentException("Количество рекомендаций должно быть от 1 до " + MAX_SUGGESTIONS);
+        }
+        requireUsers(userId);
+
+        return userStorage.getFriendSuggestions(userId, limit);
+    }
+
+    /**
+     * Проверяет существование пользователей одним пакетным запросом.
+     */
+    private Map<Integer, User> requireUsers(Integer... ids) {
+        Map<Integer, User> users = userLoader.loadMany(Arrays.asList(ids));
+        for (Integer id : ids) {
+            if (!users.containsKey(id)) {
+                throw new NotFoundException("Пользователь с ID " + id + " не найден");
+            }
+        }
+        return users;
+    }
 }
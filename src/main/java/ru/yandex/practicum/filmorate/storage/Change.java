@@ -0,0 +1,23 @@
+package ru.yandex.practicum.filmorate.storage;
+
+/**
+ * Запись журнала изменений. entityId — фильм или пользователь, relatedId — вторая сторона связи
+ * (пользователь для лайка, друг для дружбы), для остальных изменений null.
+ */
+public record Change(long seq, String nodeId, Kind kind, int entityId, Integer relatedId) {
+
+    public enum Kind {
+        FILM_CREATED,
+        FILM_UPDATED,
+        FILM_DELETED,
+        LIKE_ADDED,
+        LIKE_REMOVED,
+        LIKES_REPAIRED,
+        USER_CREATED,
+        USER_UPDATED,
+        USER_DELETED,
+        FRIEND_ADDED,
+        FRIEND_REMOVED,
+        REFERENCE_RELOADED
+    }
+}
@@ -0,0 +1,11 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.List;
+
+/**
+ * Получатель изменений, сделанных другими экземплярами приложения. Вызывается из потока опроса
+ * журнала изменений пачками в порядке seq; собственные изменения экземпляра сюда не попадают.
+ */
+public interface ChangeListener {
+    void onChanges(List<Change> changes);
+}
@@ -0,0 +1,18 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Friendship;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.util.function.Consumer;
+
+public interface ExportStorage {
+    void exportFilms(Consumer<Film> consumer);
+
+    void exportUsers(Consumer<User> consumer);
+
+    void exportLikes(Consumer<Like> consumer);
+
+    void exportFriendships(Consumer<Friendship> consumer);
+}
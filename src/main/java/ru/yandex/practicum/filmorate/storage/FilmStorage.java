@@ -1,25 +1,54 @@
 package ru.yandex.practicum.filmorate.storage;
 
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Like;
 
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 public interface FilmStorage {
     Film addFilm(Film film);
 
+    List<Film> addFilms(List<Film> films);
+
     Film updateFilm(Film film);
 
     void addLike(Integer filmId, Integer userId);
 
     void removeLike(Integer filmId, Integer userId);
 
+    int addLikes(List<Like> likes);
+
+    int removeLikes(List<Like> likes);
+
+    int repairLikeCounts();
+
+    Set<Integer> findExistingFilmIds(Collection<Integer> ids);
+
     List<Film> getTopFilms(int count);
 
+    /**
+     * Самые популярные фильмы с необязательными фильтрами по жанру, году выпуска и рейтингу MPA.
+     */
+    List<Film> getPopularFilms(int count, Integer genreId, Integer year, Integer mpaId);
+
+    /**
+     * Полнотекстовый поиск по названию и описанию, по убыванию релевантности.
+     * popularityWeight — вес числа лайков в оценке, 0 — без учёта популярности.
+     */
+    List<Film> searchFilms(String query, int limit, double popularityWeight);
+
+    List<Film> getRecommendations(int userId, int limit);
+
     Collection<Film> getAllFilms();
 
+    List<Film> getFilmsPage(int afterId, int limit);
+
     Optional<Film> getFilmById(int id);
 
+    List<Film> getFilmsByIds(Collection<Integer> ids);
+
     void deleteFilm(int id);
 }
@@ -1,26 +1,43 @@
 package ru.yandex.practicum.filmorate.storage;
 
+import ru.yandex.practicum.filmorate.model.Friendship;
 import ru.yandex.practicum.filmorate.model.User;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 public interface UserStorage {
     User addUser(User user);
 
+    List<User> addUsers(List<User> users);
+
     User updateUser(User user);
 
     Collection<User> getAllUsers();
 
+    List<User> getUsersPage(int afterId, int limit);
+
     Optional<User> getUserById(Integer id);
 
+    List<User> getUsersByIds(Collection<Integer> ids);
+
     void deleteUser(Integer id);
 
     void addFriend(Integer userId, Integer friendId);
 
     void removeFriend(Integer userId, Integer friendId);
 
+    int addFriends(List<Friendship> friendships);
+
+    Set<Integer> findExistingUserIds(Collection<Integer> ids);
+
     Collection<User> getUserFriends(Integer userId);
 
+    boolean hasFriend(Integer userId, Integer friendId);
+
     Collection<User> getCommonFriends(Integer userId, Integer friendId);
+
+    List<User> getFriendSuggestions(Integer userId, int limit);
 }
@@ -0,0 +1,141 @@
+package ru.yandex.practicum.filmorate.storage.memory;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+/**
+ * Кэш сущностей по id перед загрузкой из базы: ограничен по размеру (вытеснение W-TinyLFU в Caffeine)
+ * и по времени жизни записи. Отсутствующие сущности не кэшируются.
+ * <p>
+ * Загрузка могла прочитать строку до фиксации чужого изменения и положить её в кэш после сброса.
+ * Поэтому сброс увеличивает счётчик своей группы id (id по модулю GENERATION_STRIPES), а сброс всего кэша —
+ * общий счётчик. Загрузка убирает обратно только те записи, счётчик группы которых изменился за время
+ * загрузки, так что лайки других фильмов не мешают заполнению кэша. Внутри транзакции кэш не используется:
+ * она может видеть незафиксированные данные.
+ */
+public class EntityCache<T> {
+    public static final Duration DEFAULT_EXPIRE_AFTER_WRITE = Duration.ofMinutes(5);
+
+    private static final int GENERATION_STRIPES = 1024;
+
+    private final Cache<Integer, T> cache;
+    private final Function<T, Integer> idExtractor;
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+    private final AtomicLong fullInvalidations = new AtomicLong();
+    private volatile BooleanSupplier skipPopulation = () -> false;
+
+    /**
+     * При maximumSize = 0 кэш выключен и все чтения идут в базу.
+     */
+    public EntityCache(long maximumSize, Duration expireAfterWrite, Function<T, Integer> idExtractor) {
+        this.cache = maximumSize > 0
+                ? Caffeine.newBuilder().maximumSize(maximumSize).expireAfterWrite(expireAfterWrite).recordStats().build()
+                : null;
+        this.idExtractor = idExtractor;
+    }
+
+    /**
+     * Возвращает сущности в порядке переданных id, отсутствующие id пропускаются.
+     * Недостающие в кэше сущности загружаются одним вызовом loader.
+     */
+    public List<T> getAll(List<Integer> ids, Function<List<Integer>, List<T>> loader) {
+        if (cache == null || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return loader.apply(ids);
+        }
+        Map<Integer, T> found = new HashMap<>(cache.getAllPresent(ids));
+        LinkedHashSet<Integer> missing = new LinkedHashSet<>();
+        for (Integer id : ids) {
+            if (!found.containsKey(id)) {
+                missing.add(id);
+            }
+        }
+        if (!missing.isEmpty()) {
+            long fullGeneration = fullInvalidations.get();
+            Map<Integer, Long> generationsBefore = new HashMap<>();
+            missing.forEach(id -> generationsBefore.put(id, generations.get(stripe(id))));
+            List<T> loaded = loader.apply(new ArrayList<>(missing));
+            Map<Integer, T> loadedById = new HashMap<>();
+            loaded.forEach(entity -> loadedById.put(idExtractor.apply(entity), entity));
+            if (skipPopulation.getAsBoolean()) {
+                found.putAll(loadedById);
+                return ordered(ids, found);
+            }
+            cache.putAll(loadedById);
+            if (fullInvalidations.get() != fullGeneration) {
+                cache.invalidateAll(loadedById.keySet());
+            } else {
+                List<Integer> stale = new ArrayList<>();
+                loadedById.keySet().forEach(id -> {
+                    Long before = generationsBefore.get(id);
+                    if (before == null || generations.get(stripe(id)) != before) {
+                        stale.add(id);
+                    }
+                });
+                cache.invalidateAll(stale);
+            }
+            found.putAll(loadedById);
+        }
+        return ordered(ids, found);
+    }
+
+    /**
+     * Пока condition истинно, загруженные сущности в кэш не кладутся, хотя попадания по-прежнему
+     * отдаются из кэша. Так чтение с реплики, которая ещё не получила изменение, не возвращает
+     * в кэш запись, только что сброшенную записью в основную базу.
+     */
+    public void skipPopulationWhen(BooleanSupplier condition) {
+        this.skipPopulation = condition;
+    }
+
+    public void invalidate(int id) {
+        if (cache != null) {
+            generations.incrementAndGet(stripe(id));
+            cache.invalidate(id);
+        }
+    }
+
+    public void invalidateAll() {
+        if (cache != null) {
+            fullInvalidations.incrementAndGet();
+            cache.invalidateAll();
+        }
+    }
+
+    private List<T> ordered(List<Integer> ids, Map<Integer, T> found) {
+        List<T> result = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            T entity = found.get(id);
+            if (entity != null) {
+                result.add(entity);
+            }
+        }
+        return result;
+    }
+
+    private static int stripe(int id) {
+        return id & (GENERATION_STRIPES - 1);
+    }
+
+    /**
+     * Публикует попадания, промахи, вытеснения и размер кэша как метрики cache.* с тегом cache=name.
+     */
+    public void bindTo(MeterRegistry registry, String name) {
+        if (cache != null) {
+            CaffeineCacheMetrics.monitor(registry, cache, name);
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package ru.yandex.practicum.filmorate.storage.memory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Рейтинг фильмов по количеству лайков, который хранится в памяти.
+ * Счётчики обновляются на месте при добавлении и удалении лайков,
+ * поэтому получение топ-N стоит O(N) и не требует агрегации по film_likes.
+ * Кроме общего рейтинга ведутся отдельные рейтинги по каждому жанру, году выпуска и MPA:
+ * запрос с одним фильтром читает начало одного рейтинга, а с несколькими — пересекает их слиянием,
+ * перескакивая по самому длинному рейтингу через ceiling, а не просматривая его целиком.
+ */
+public class FilmLeaderboard {
+    private static final Comparator<Entry> RANKING_ORDER = Comparator.comparingLong(Entry::likes).reversed()
+            .thenComparingInt(Entry::filmId);
+
+    private final Map<Integer, Entry> entries = new HashMap<>();
+    private final NavigableSet<Entry> ranking = new TreeSet<>(RANKING_ORDER);
+    private final Map<Integer, Facets> facetsByFilm = new HashMap<>();
+    private final Map<Integer, NavigableSet<Entry>> rankingByGenre = new HashMap<>();
+    private final Map<Integer, NavigableSet<Entry>> rankingByYear = new HashMap<>();
+    private final Map<Integer, NavigableSet<Entry>> rankingByMpa = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean loaded;
+
+    /**
+     * Однократно загружает счётчики лайков и признаки фильмов. Все изменения рейтинга ждут окончания загрузки.
+     */
+    public void ensureLoaded(Supplier<Map<Integer, Long>> likesLoader, Supplier<Map<Integer, Facets>> facetsLoader) {
+        if (loaded) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                replaceAll(likesLoader.get(), facetsLoader.get());
+                loaded = true;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Заменяет все счётчики свежими данными, например после исправления расхождений в базе.
+     */
+    public void reload(Supplier<Map<Integer, Long>> likesLoader, Supplier<Map<Integer, Facets>> facetsLoader) {
+        lock.writeLock().lock();
+        try {
+            replaceAll(likesLoader.get(), facetsLoader.get());
+            loaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void addFilm(int filmId, Facets facets) {
+        lock.writeLock().lock();
+        try {
+            if (!entries.containsKey(filmId)) {
+                facetsByFilm.put(filmId, facets);
+                put(new Entry(filmId, 0));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Добавляет фильм или заменяет его счётчик и признаки, например по данным из базы,
+     * когда лайки фильма пришли раньше записи о его создании.
+     */
+    public void putFilm(int filmId, long likes, Facets facets) {
+        lock.writeLock().lock();
+        try {
+            Entry current = entries.get(filmId);
+            if (current != null) {
+                remove(current);
+            }
+            facetsByFilm.put(filmId, facets);
+            put(new Entry(filmId, likes));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Переносит фильм в рейтинги новых жанров, года и MPA после изменения фильма.
+     */
+    public void updateFacets(int filmId, Facets facets) {
+        lock.writeLock().lock();
+        try {
+            Entry entry = entries.get(filmId);
+            if (entry != null) {
+                remove(entry);
+                facetsByFilm.put(filmId, facets);
+                put(entry);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeFilm(int filmId) {
+        lock.writeLock().lock();
+        try {
+            Entry entry = entries.get(filmId);
+            if (entry != null) {
+                remove(entry);
+            }
+            facetsByFilm.remove(filmId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Лайк фильма, которого нет в рейтинге, пропускается: фильм уже удалён
+     * или ещё не добавлен, и тогда его счётчик будет прочитан из базы при добавлении.
+     */
+    public void increment(int filmId) {
+        adjust(filmId, 1);
+    }
+
+    public void decrement(int filmId) {
+        adjust(filmId, -1);
+    }
+
+    public List<Integer> top(int count) {
+        return top(count, null, null, null);
+    }
+
+    /**
+     * Топ фильмов с необязательными фильтрами; null означает, что фильтр не задан.
+     */
+    public List<Integer> top(int count, Integer genreId, Integer year, Integer mpaId) {
+        lock.readLock().lock();
+        try {
+            List<NavigableSet<Entry>> rankings = new ArrayList<>(3);
+            if (genreId != null) {
+                rankings.add(rankingByGenre.getOrDefault(genreId, Collections.emptyNavigableSet()));
+            }
+            if (year != null) {
+                rankings.add(rankingByYear.getOrDefault(year, Collections.emptyNavigableSet()));
+            }
+            if (mpaId != null) {
+                rankings.add(rankingByMpa.getOrDefault(mpaId, Collections.emptyNavigableSet()));
+            }
+            if (rankings.isEmpty()) {
+                rankings.add(ranking);
+            }
+            return intersect(rankings, count);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean contains(int filmId) {
+        lock.readLock().lock();
+        try {
+            return entries.containsKey(filmId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long getLikes(int filmId) {
+        lock.readLock().lock();
+        try {
+            Entry entry = entries.get(filmId);
+            return entry != null ? entry.likes() : 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void adjust(int filmId, long delta) {
+        lock.writeLock().lock();
+        try {
+            Entry current = entries.get(filmId);
+            if (current != null) {
+                remove(current);
+                put(new Entry(filmId, Math.max(0, current.likes() + delta)));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void replaceAll(Map<Integer, Long> likesByFilm, Map<Integer, Facets> facets) {
+        entries.clear();
+        ranking.clear();
+        rankingByGenre.clear();
+        rankingByYear.clear();
+        rankingByMpa.clear();
+        facetsByFilm.clear();
+        facetsByFilm.putAll(facets);
+        likesByFilm.forEach((filmId, likes) -> put(new Entry(filmId, likes)));
+    }
+
+    private void put(Entry entry) {
+        entries.put(entry.filmId(), entry);
+        ranking.add(entry);
+        Facets facets = facetsByFilm.get(entry.filmId());
+        if (facets != null) {
+            for (int genreId : facets.genreIds()) {
+                facetRanking(rankingByGenre, genreId).add(entry);
+            }
+            if (facets.year() != null) {
+                facetRanking(rankingByYear, facets.year()).add(entry);
+            }
+            facetRanking(rankingByMpa, facets.mpaId()).add(entry);
+        }
+    }
+
+    private void remove(Entry entry) {
+        entries.remove(entry.filmId());
+        ranking.remove(entry);
+        Facets facets = facetsByFilm.get(entry.filmId());
+        if (facets != null) {
+            for (int genreId : facets.genreIds()) {
+                removeFromFacet(rankingByGenre, genreId, entry);
+            }
+            if (facets.year() != null) {
+                removeFromFacet(rankingByYear, facets.year(), entry);
+            }
+            removeFromFacet(rankingByMpa, facets.mpaId(), entry);
+        }
+    }
+
+    private static NavigableSet<Entry> facetRanking(Map<Integer, NavigableSet<Entry>> rankings, int key) {
+        return rankings.computeIfAbsent(key, k -> new TreeSet<>(RANKING_ORDER));
+    }
+
+    private static void removeFromFacet(Map<Integer, NavigableSet<Entry>> rankings, int key, Entry entry) {
+        NavigableSet<Entry> facetRanking = rankings.get(key);
+        if (facetRanking != null) {
+            facetRanking.remove(entry);
+            if (facetRanking.isEmpty()) {
+                rankings.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Первые count фильмов, входящих во все рейтинги. Рейтинги упорядочены одинаково, поэтому
+     * кандидат по очереди ищется в каждом через ceiling: если рейтинг вернул другой фильм,
+     * он становится новым кандидатом, и пропущенные между ними фильмы не просматриваются.
+     */
+    private static List<Integer> intersect(List<NavigableSet<Entry>> rankings, int count) {
+        rankings.sort(Comparator.comparingInt(NavigableSet::size));
+        NavigableSet<Entry> smallest = rankings.get(0);
+        List<Integer> filmIds = new ArrayList<>(Math.min(count, smallest.size()));
+        Entry candidate = smallest.isEmpty() ? null : smallest.first();
+        int matched = 1;
+        int next = 1 % rankings.size();
+        while (candidate != null && filmIds.size() < count) {
+            if (matched == rankings.size()) {
+                filmIds.add(candidate.filmId());
+                candidate = smallest.higher(candidate);
+                matched = 1;
+                next = 1 % rankings.size();
+                continue;
+            }
+            Entry found = rankings.get(next).ceiling(candidate);
+            if (found == null) {
+                break;
+            }
+            if (RANKING_ORDER.compare(found, candidate) == 0) {
+                matched++;
+            } else {
+                candidate = found;
+                matched = 1;
+            }
+            next = (next + 1) % rankings.size();
+        }
+        return filmIds;
+    }
+
+    /**
+     * Признаки фильма, по которым ведутся отдельные рейтинги. Фильм без даты выхода (year == null)
+     * в рейтинги по годам не попадает.
+     */
+    public record Facets(Integer year, int mpaId, int[] genreIds) {
+    }
+
+    private record Entry(int filmId, long likes) {
+    }
+}
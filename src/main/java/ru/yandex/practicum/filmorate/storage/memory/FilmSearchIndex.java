@@ -0,0 +1,248 @@
+package ru.yandex.practicum.filmorate.storage.memory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.IntToLongFunction;
+
+/**
+ * Полнотекстовый индекс по названиям и описаниям фильмов: основа слова → сжатый {@link PostingList}.
+ * Релевантность считается по BM25, слово в названии весит как {@value #NAME_WEIGHT} слова в описании.
+ * Последнее слово запроса ищется ещё и как префикс, чтобы поиск работал по мере набора.
+ * Слова разных частей запроса объединяются по ИЛИ, фильм с большим числом совпадений получает больший вес.
+ */
+public class FilmSearchIndex {
+    private static final int NAME_WEIGHT = 3;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int MIN_PREFIX_LENGTH = 2;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+    // Дополнение префикса ранжируется чуть ниже точного совпадения основы
+    private static final double PREFIX_FACTOR = 0.8;
+
+    private final NavigableMap<String, PostingList> postings = new TreeMap<>();
+    private final Map<Integer, Document> documents = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private long totalLength;
+    private volatile boolean loaded;
+
+    /**
+     * Однократно строит индекс: загрузчик передаёт все фильмы в приёмник.
+     */
+    public void ensureLoaded(Consumer<DocumentSink> loader) {
+        if (loaded) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                postings.clear();
+                documents.clear();
+                totalLength = 0;
+                Map<String, PostingList.Builder> builders = new HashMap<>();
+                loader.accept((filmId, name, description) -> {
+                    Map<String, Integer> frequencies = frequencies(name, description);
+                    frequencies.forEach((term, frequency) ->
+                            builders.computeIfAbsent(term, key -> new PostingList.Builder()).add(filmId, frequency));
+                    addDocument(filmId, frequencies);
+                });
+                builders.forEach((term, builder) -> postings.put(term, builder.build()));
+                loaded = true;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Добавляет фильм или заменяет его прежний текст.
+     */
+    public void put(int filmId, String name, String description) {
+        Map<String, Integer> frequencies = frequencies(name, description);
+        lock.writeLock().lock();
+        try {
+            removeDocument(filmId);
+            frequencies.forEach((term, frequency) ->
+                    postings.put(term, postings.getOrDefault(term, PostingList.EMPTY).with(filmId, frequency)));
+            addDocument(filmId, frequencies);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Пакетное добавление или замена фильмов: список вхождений каждого слова перестраивается
+     * один раз на пачку, а не на каждый фильм, как при вызовах {@link #put}.
+     */
+    public void putAll(Consumer<DocumentSink> loader) {
+        Map<Integer, Map<String, Integer>> added = new LinkedHashMap<>();
+        loader.accept((filmId, name, description) -> added.put(filmId, frequencies(name, description)));
+        if (added.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            Map<String, PostingList.Builder> builders = new HashMap<>();
+            added.forEach((filmId, frequencies) -> {
+                removeDocument(filmId);
+                frequencies.forEach((term, frequency) ->
+                        builders.computeIfAbsent(term, key -> new PostingList.Builder()).add(filmId, frequency));
+                addDocument(filmId, frequencies);
+            });
+            builders.forEach((term, builder) ->
+                    postings.put(term, postings.getOrDefault(term, PostingList.EMPTY).withAll(builder)));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int filmId) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(filmId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * id фильмов по убыванию релевантности. При popularityWeight > 0 оценка умножается
+     * на 1 + popularityWeight * ln(1 + лайки), так что из равных по тексту выше популярные фильмы.
+     */
+    public int[] search(String query, int limit, IntToLongFunction likes, double popularityWeight) {
+        List<String> words = SearchTokenizer.words(query);
+        if (words.isEmpty() || limit < 1) {
+            return new int[0];
+        }
+        lock.readLock().lock();
+        try {
+            if (documents.isEmpty()) {
+                return new int[0];
+            }
+            double averageLength = (double) totalLength / documents.size();
+            Map<Integer, Double> scores = new HashMap<>();
+            for (int i = 0; i < words.size(); i++) {
+                Map<Integer, Double> wordScores = new HashMap<>();
+                matchingTerms(words.get(i), i == words.size() - 1).forEach((term, factor) ->
+                        score(postings.get(term), factor, averageLength, wordScores));
+                wordScores.forEach((filmId, score) -> scores.merge(filmId, score, Double::sum));
+            }
+            return top(scores, limit, likes, popularityWeight);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Основы, которые соответствуют слову запроса, с множителем оценки.
+     */
+    private Map<String, Double> matchingTerms(String word, boolean last) {
+        Map<String, Double> terms = new LinkedHashMap<>();
+        String stem = SearchTokenizer.stem(word);
+        if (postings.containsKey(stem)) {
+            terms.put(stem, 1.0);
+        }
+        if (last && word.length() >= MIN_PREFIX_LENGTH) {
+            for (String term : postings.subMap(word, true, word + Character.MAX_VALUE, true).keySet()) {
+                if (terms.size() >= MAX_PREFIX_EXPANSIONS) {
+                    break;
+                }
+                terms.putIfAbsent(term, PREFIX_FACTOR);
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * BM25 слова для каждого фильма из списка; если слову запроса подходит несколько основ, берётся лучшая.
+     */
+    private void score(PostingList list, double factor, double averageLength, Map<Integer, Double> wordScores) {
+        int documentFrequency = list.size();
+        double idf = Math.log(1 + (documents.size() - documentFrequency + 0.5) / (documentFrequency + 0.5));
+        list.forEach((filmId, frequency) -> {
+            double normalization = K1 * (1 - B + B * documents.get(filmId).length() / averageLength);
+            double score = factor * idf * frequency * (K1 + 1) / (frequency + normalization);
+            wordScores.merge(filmId, score, Math::max);
+        });
+    }
+
+    private static int[] top(Map<Integer, Double> scores, int limit, IntToLongFunction likes,
+                             double popularityWeight) {
+        Comparator<Map.Entry<Integer, Double>> order = Map.Entry.<Integer, Double>comparingByValue()
+                .thenComparing(Map.Entry.<Integer, Double>comparingByKey().reversed());
+        PriorityQueue<Map.Entry<Integer, Double>> best = new PriorityQueue<>(limit + 1, order);
+        for (Map.Entry<Integer, Double> entry : scores.entrySet()) {
+            double score = entry.getValue();
+            if (popularityWeight > 0) {
+                score *= 1 + popularityWeight * Math.log1p(Math.max(0, likes.applyAsLong(entry.getKey())));
+            }
+            best.offer(Map.entry(entry.getKey(), score));
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+        List<Map.Entry<Integer, Double>> ranked = new ArrayList<>(best);
+        ranked.sort(order.reversed());
+        return ranked.stream().mapToInt(Map.Entry::getKey).toArray();
+    }
+
+    private static Map<String, Integer> frequencies(String name, String description) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        SearchTokenizer.words(name).forEach(word ->
+                frequencies.merge(SearchTokenizer.stem(word), NAME_WEIGHT, Integer::sum));
+        SearchTokenizer.words(description).forEach(word ->
+                frequencies.merge(SearchTokenizer.stem(word), 1, Integer::sum));
+        return frequencies;
+    }
+
+    private void addDocument(int filmId, Map<String, Integer> frequencies) {
+        int length = frequencies.values().stream().mapToInt(Integer::intValue).sum();
+        documents.put(filmId, new Document(length, frequencies.keySet().toArray(String[]::new)));
+        totalLength += length;
+    }
+
+    private void removeDocument(int filmId) {
+        Document document = documents.remove(filmId);
+        if (document == null) {
+            return;
+        }
+        totalLength -= document.length();
+        for (String term : document.terms()) {
+            PostingList list = postings.get(term);
+            if (list != null) {
+                PostingList rest = list.without(filmId);
+                if (rest.size() == 0) {
+                    postings.remove(term);
+                } else {
+                    postings.put(term, rest);
+                }
+            }
+        }
+    }
+
+    private record Document(int length, String[] terms) {
+    }
+
+    @FunctionalInterface
+    public interface DocumentSink {
+        void accept(int filmId, String name, String description);
+    }
+}
@@ -0,0 +1,146 @@
+package ru.yandex.practicum.filmorate.storage.memory;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Граф дружбы в памяти: для каждого пользователя хранится отсортированный массив id друзей.
+ * Массивы не изменяются после публикации — при изменении связи массив пересоздаётся,
+ * поэтому читатели работают без блокировок. Возвращаемые массивы изменять нельзя.
+ * Каждое изменение списка друзей получает номер версии, по которому производные кэши
+ * определяют, устарели ли их данные.
+ */
+public class FriendGraph {
+    private static final int[] EMPTY = new int[0];
+
+    private final Map<Integer, Node> adjacency = new ConcurrentHashMap<>();
+    private final AtomicLong clock = new AtomicLong();
+    private final Lock loadLock = new ReentrantLock();
+    private volatile boolean loaded;
+
+    public void ensureLoaded(Supplier<Map<Integer, int[]>> loader) {
+        if (loaded) {
+            return;
+        }
+        // Загрузчик ходит в базу, поэтому блокировка, а не synchronized: так не закрепляется поток-носитель
+        loadLock.lock();
+        try {
+            if (!loaded) {
+                adjacency.clear();
+                long version = clock.incrementAndGet();
+                loader.get().forEach((userId, friendIds) -> {
+                    int[] sorted = friendIds.clone();
+                    Arrays.sort(sorted);
+                    adjacency.put(userId, new Node(sorted, version));
+                });
+                loaded = true;
+            }
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    public void addEdge(int userId, int friendId) {
+        adjacency.compute(userId, (id, node) -> {
+            int[] friendIds = node != null ? node.friendIds() : EMPTY;
+            int[] updated = insert(friendIds, friendId);
+            return updated == friendIds && node != null ? node : new Node(updated, clock.incrementAndGet());
+        });
+    }
+
+    public void removeEdge(int userId, int friendId) {
+        adjacency.computeIfPresent(userId, (id, node) -> {
+            int[] updated = remove(node.friendIds(), friendId);
+            // Пустой узел сохраняется, чтобы не потерять номер версии
+            return updated == node.friendIds() ? node : new Node(updated, clock.incrementAndGet());
+        });
+    }
+
+    /**
+     * Удаляет пользователя вместе со всеми входящими связями. Операция редкая, поэтому обходит весь граф.
+     */
+    public void removeUser(int userId) {
+        adjacency.remove(userId);
+        adjacency.keySet().forEach(id -> removeEdge(id, userId));
+    }
+
+    public int[] getFriends(int userId) {
+        Node node = adjacency.get(userId);
+        return node != null ? node.friendIds() : EMPTY;
+    }
+
+    public boolean hasEdge(int userId, int friendId) {
+        return Arrays.binarySearch(getFriends(userId), friendId) >= 0;
+    }
+
+    /**
+     * Версия последнего изменения списка друзей пользователя.
+     */
+    public long getVersion(int userId) {
+        Node node = adjacency.get(userId);
+        return node != null ? node.version() : 0;
+    }
+
+    /**
+     * Текущее значение счётчика версий: всё, что изменится позже, получит версию больше этой.
+     */
+    public long currentVersion() {
+        return clock.get();
+    }
+
+    /**
+     * Пересечение двух отсортированных списков слиянием за O(n + m).
+     */
+    public int[] getCommonFriends(int userId, int otherId) {
+        int[] first = getFriends(userId);
+        int[] second = getFriends(otherId);
+        int[] common = new int[Math.min(first.length, second.length)];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < first.length && j < second.length) {
+            if (first[i] < second[j]) {
+                i++;
+            } else if (first[i] > second[j]) {
+                j++;
+            } else {
+                common[size++] = first[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(common, size);
+    }
+
+    private static int[] insert(int[] friendIds, int friendId) {
+        int position = Arrays.binarySearch(friendIds, friendId);
+        if (position >= 0) {
+            return friendIds;
+        }
+        int insertAt = -position - 1;
+        int[] updated = new int[friendIds.length + 1];
+        System.arraycopy(friendIds, 0, updated, 0, insertAt);
+        updated[insertAt] = friendId;
+        System.arraycopy(friendIds, insertAt, updated, insertAt + 1, friendIds.length - insertAt);
+        return updated;
+    }
+
+    private static int[] remove(int[] friendIds, int friendId) {
+        int position = Arrays.binarySearch(friendIds, friendId);
+        if (position < 0) {
+            return friendIds;
+        }
+        int[] updated = new int[friendIds.length - 1];
+        System.arraycopy(friendIds, 0, updated, 0, position);
+        System.arraycopy(friendIds, position + 1, updated, position, friendIds.length - position - 1);
+        return updated;
+    }
+
+    private record Node(int[] friendIds, long version) {
+    }
+}
@@ -0,0 +1,113 @@
+package ru.yandex.practicum.filmorate.storage.memory;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Рекомендации друзей по числу общих друзей: обход графа на два шага от пользователя.
+ * Подсчёт кандидатов делится между ядрами через fork/join, результат кэшируется и считается
+ * устаревшим, как только меняется список друзей самого пользователя или любого из его друзей.
+ */
+public class FriendSuggestions {
+    // Сколько друзей первого уровня обрабатывает одна подзадача
+    private static final int FRIENDS_PER_TASK = 256;
+    private static final int MIN_CACHED_SUGGESTIONS = 50;
+    private static final int MAX_CACHED_USERS = 10_000;
+
+    private final FriendGraph graph;
+    private final ForkJoinPool pool;
+    private final Map<Integer, CachedSuggestions> cache = new ConcurrentHashMap<>();
+
+    public FriendSuggestions(FriendGraph graph) {
+        this(graph, ForkJoinPool.commonPool());
+    }
+
+    public FriendSuggestions(FriendGraph graph, ForkJoinPool pool) {
+        this.graph = graph;
+        this.pool = pool;
+    }
+
+    /**
+     * Возвращает id рекомендуемых пользователей по убыванию числа общих друзей, при равенстве — по id.
+     */
+    public int[] suggest(int userId, int limit) {
+        CachedSuggestions cached = cache.get(userId);
+        if (cached != null && isValid(userId, cached) && (cached.complete() || cached.userIds().length >= limit)) {
+            return Arrays.copyOf(cached.userIds(), Math.min(limit, cached.userIds().length));
+        }
+
+        // Версию фиксируем до обхода: изменения во время подсчёта сделают запись устаревшей
+        long computedAt = graph.currentVersion();
+        int cachedLimit = Math.max(limit, MIN_CACHED_SUGGESTIONS);
+        int[] friendIds = graph.getFriends(userId);
+        IntCounter mutualCounts = friendIds.length <= FRIENDS_PER_TASK
+                ? new CountTask(userId, friendIds, 0, friendIds.length).compute()
+                : pool.invoke(new CountTask(userId, friendIds, 0, friendIds.length));
+        int[] ranked = mutualCounts.topKeys(cachedLimit,
+                candidateId -> candidateId == userId || Arrays.binarySearch(friendIds, candidateId) >= 0);
+
+        if (cache.size() >= MAX_CACHED_USERS) {
+            cache.clear();
+        }
+        cache.put(userId, new CachedSuggestions(ranked, ranked.length < cachedLimit, computedAt));
+        return Arrays.copyOf(ranked, Math.min(limit, ranked.length));
+    }
+
+    private boolean isValid(int userId, CachedSuggestions cached) {
+        if (graph.getVersion(userId) > cached.computedAt()) {
+            return false;
+        }
+        for (int friendId : graph.getFriends(userId)) {
+            if (graph.getVersion(friendId) > cached.computedAt()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private final class CountTask extends RecursiveTask<IntCounter> {
+        private final int userId;
+        private final int[] friendIds;
+        private final int from;
+        private final int to;
+
+        private CountTask(int userId, int[] friendIds, int from, int to) {
+            this.userId = userId;
+            this.friendIds = friendIds;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected IntCounter compute() {
+            if (to - from <= FRIENDS_PER_TASK) {
+                IntCounter counter = new IntCounter(64);
+                for (int i = from; i < to; i++) {
+                    for (int candidateId : graph.getFriends(friendIds[i])) {
+                        if (candidateId != userId) {
+                            counter.increment(candidateId);
+                        }
+                    }
+                }
+                return counter;
+            }
+            int middle = (from + to) >>> 1;
+            CountTask left = new CountTask(userId, friendIds, from, middle);
+            left.fork();
+            IntCounter right = new CountTask(userId, friendIds, middle, to).compute();
+            IntCounter merged = left.join();
+            if (merged.size() < right.size()) {
+                right.addAll(merged);
+                return right;
+            }
+            merged.addAll(right);
+            return merged;
+        }
+    }
+
+    private record CachedSuggestions(int[] userIds, boolean complete, long computedAt) {
+    }
+}
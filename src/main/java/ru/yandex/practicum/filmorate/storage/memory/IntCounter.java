@@ -0,0 +1,122 @@
+package ru.yandex.practicum.filmorate.storage.memory;
+
+import java.util.PriorityQueue;
+import java.util.function.IntPredicate;
+
+/**
+ * Счётчики с ключами int на открытой адресации, без упаковки в Integer.
+ * Ключи должны быть положительными: 0 обозначает свободную ячейку.
+ */
+public final class IntCounter {
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private int[] keys;
+    private int[] counts;
+    private int size;
+
+    public IntCounter(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        keys = new int[capacity];
+        counts = new int[capacity];
+    }
+
+    public void increment(int key) {
+        add(key, 1);
+    }
+
+    public void add(int key, int delta) {
+        int slot = findSlot(keys, key);
+        if (keys[slot] == 0) {
+            keys[slot] = key;
+            if (++size > keys.length * LOAD_FACTOR) {
+                counts[slot] = delta;
+                grow();
+                return;
+            }
+        }
+        counts[slot] += delta;
+    }
+
+    public void addAll(IntCounter other) {
+        for (int i = 0; i < other.keys.length; i++) {
+            if (other.keys[i] != 0) {
+                add(other.keys[i], other.counts[i]);
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Количество ячеек таблицы: ключи перебираются через {@link #keyAt(int)} и {@link #countAt(int)}.
+     */
+    public int capacity() {
+        return keys.length;
+    }
+
+    public int keyAt(int slot) {
+        return keys[slot];
+    }
+
+    public int countAt(int slot) {
+        return counts[slot];
+    }
+
+    /**
+     * Ключи с наибольшими значениями счётчика (при равенстве — с меньшим ключом), по убыванию.
+     * Отбор идёт через кучу размера limit, поэтому не требует сортировки всех ключей.
+     */
+    public int[] topKeys(int limit, IntPredicate exclude) {
+        // В куче лежат упакованные пары (значение, ключ): больше — лучше
+        PriorityQueue<Long> top = new PriorityQueue<>(limit + 1);
+        for (int slot = 0; slot < keys.length; slot++) {
+            int key = keys[slot];
+            if (key == 0 || exclude.test(key)) {
+                continue;
+            }
+            long packed = ((long) counts[slot] << 32) | (Integer.MAX_VALUE - key);
+            if (top.size() < limit) {
+                top.add(packed);
+            } else if (packed > top.peek()) {
+                top.poll();
+                top.add(packed);
+            }
+        }
+
+        int[] ranked = new int[top.size()];
+        for (int i = ranked.length - 1; i >= 0; i--) {
+            ranked[i] = Integer.MAX_VALUE - (int) (top.poll() & 0xFFFFFFFFL);
+        }
+        return ranked;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        int[] oldCounts = counts;
+        keys = new int[oldKeys.length * 2];
+        counts = new int[oldKeys.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = findSlot(keys, oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+    }
+
+    private static int findSlot(int[] keys, int key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,163 @@
+package ru.yandex.practicum.filmorate.storage.memory;
+
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+/**
+ * Лайки в виде сжатых битовых карт (Roaring): фильмы каждого пользователя и пользователи каждого фильма.
+ * Используется для коллаборативной фильтрации: похожесть пользователей — мощность пересечения их карт.
+ */
+public class LikeBitmapIndex {
+    private static final int NEIGHBOURS = 20;
+
+    private final Map<Integer, RoaringBitmap> filmsByUser = new HashMap<>();
+    private final Map<Integer, RoaringBitmap> usersByFilm = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean loaded;
+
+    /**
+     * Однократно заполняет индекс: загрузчик передаёт все пары (фильм, пользователь) в приёмник.
+     */
+    public void ensureLoaded(Consumer<LikeSink> loader) {
+        if (loaded) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                filmsByUser.clear();
+                usersByFilm.clear();
+                loader.accept(this::put);
+                filmsByUser.values().forEach(RoaringBitmap::runOptimize);
+                usersByFilm.values().forEach(RoaringBitmap::runOptimize);
+                loaded = true;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void addLike(int filmId, int userId) {
+        lock.writeLock().lock();
+        try {
+            put(filmId, userId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeLike(int filmId, int userId) {
+        lock.writeLock().lock();
+        try {
+            removeFrom(filmsByUser, userId, filmId);
+            removeFrom(usersByFilm, filmId, userId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeFilm(int filmId) {
+        lock.writeLock().lock();
+        try {
+            RoaringBitmap users = usersByFilm.remove(filmId);
+            if (users != null) {
+                users.forEach((int userId) -> removeFrom(filmsByUser, userId, filmId));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Фильмы, которые лайкали наиболее похожие пользователи и не лайкал сам пользователь.
+     * Вес фильма — сумма пересечений лайков соседей, которым он понравился.
+     */
+    public int[] recommend(int userId, int limit) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap liked = filmsByUser.get(userId);
+            if (liked == null || liked.isEmpty()) {
+                return new int[0];
+            }
+
+            // Кандидаты в соседи — все, у кого есть хотя бы один общий лайк
+            RoaringBitmap candidates = FastAggregation.or(liked.stream()
+                    .mapToObj(usersByFilm::get)
+                    .filter(users -> users != null)
+                    .iterator());
+            candidates.remove(userId);
+
+            // Пересечения считаются параллельно, каждый поток держит свою кучу из NEIGHBOURS лучших
+            NeighbourHeap neighbours = IntStream.of(candidates.toArray())
+                    .parallel()
+                    .collect(NeighbourHeap::new,
+                            (heap, candidateId) -> heap.offer(
+                                    RoaringBitmap.andCardinality(liked, filmsByUser.get(candidateId)), candidateId),
+                            NeighbourHeap::merge);
+
+            IntCounter scores = new IntCounter(64);
+            for (long packed : neighbours.top) {
+                int neighbourId = Integer.MAX_VALUE - (int) (packed & 0xFFFFFFFFL);
+                int overlap = (int) (packed >>> 32);
+                RoaringBitmap.andNot(filmsByUser.get(neighbourId), liked)
+                        .forEach((int filmId) -> scores.add(filmId, overlap));
+            }
+            return scores.topKeys(limit, filmId -> false);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void put(int filmId, int userId) {
+        filmsByUser.computeIfAbsent(userId, id -> new RoaringBitmap()).add(filmId);
+        usersByFilm.computeIfAbsent(filmId, id -> new RoaringBitmap()).add(userId);
+    }
+
+    private static void removeFrom(Map<Integer, RoaringBitmap> bitmaps, int key, int value) {
+        RoaringBitmap bitmap = bitmaps.get(key);
+        if (bitmap != null) {
+            bitmap.remove(value);
+            if (bitmap.isEmpty()) {
+                bitmaps.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Куча размера NEIGHBOURS с упакованными парами (пересечение, id): больше — лучше,
+     * при равном пересечении выигрывает меньший id.
+     */
+    private static final class NeighbourHeap {
+        private final PriorityQueue<Long> top = new PriorityQueue<>(NEIGHBOURS + 1);
+
+        void offer(long overlap, int userId) {
+            offer((overlap << 32) | (Integer.MAX_VALUE - userId));
+        }
+
+        void merge(NeighbourHeap other) {
+            other.top.forEach(this::offer);
+        }
+
+        private void offer(long packed) {
+            if (top.size() < NEIGHBOURS) {
+                top.add(packed);
+            } else if (packed > top.peek()) {
+                top.poll();
+                top.add(packed);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface LikeSink {
+        void accept(int filmId, int userId);
+    }
+}
@@ -0,0 +1,175 @@
+package ru.yandex.practicum.filmorate.storage.memory;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+/**
+ * Сжатый список вхождений слова: пары (id фильма, частота), отсортированные по id.
+ * Хранится как разности соседних id и частоты в формате varint — обычно 2–3 байта на фильм вместо 8.
+ * Список неизменяемый: добавление и удаление фильма создают новый.
+ */
+final class PostingList {
+    static final PostingList EMPTY = new PostingList(new byte[0], 0);
+
+    private final byte[] data;
+    private final int size;
+
+    private PostingList(byte[] data, int size) {
+        this.data = data;
+        this.size = size;
+    }
+
+    /**
+     * Кодирует пары, id должны быть строго возрастающими.
+     */
+    static PostingList encode(int[] filmIds, int[] frequencies, int size) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(size * 3);
+        int previous = 0;
+        for (int i = 0; i < size; i++) {
+            writeVarInt(out, filmIds[i] - previous);
+            writeVarInt(out, frequencies[i]);
+            previous = filmIds[i];
+        }
+        return new PostingList(out.toByteArray(), size);
+    }
+
+    int size() {
+        return size;
+    }
+
+    int byteSize() {
+        return data.length;
+    }
+
+    void forEach(PostingConsumer consumer) {
+        int position = 0;
+        int filmId = 0;
+        for (int i = 0; i < size; i++) {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[position++];
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            filmId += value;
+
+            int frequency = 0;
+            shift = 0;
+            do {
+                b = data[position++];
+                frequency |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            consumer.accept(filmId, frequency);
+        }
+    }
+
+    /**
+     * Новый список с фильмом: частота заменяется, если фильм уже есть.
+     */
+    PostingList with(int filmId, int frequency) {
+        int[] ids = new int[size + 1];
+        int[] frequencies = new int[size + 1];
+        int[] count = {0};
+        boolean[] inserted = {false};
+        forEach((id, f) -> {
+            if (!inserted[0] && id >= filmId) {
+                ids[count[0]] = filmId;
+                frequencies[count[0]++] = frequency;
+                inserted[0] = true;
+                if (id == filmId) {
+                    return;
+                }
+            }
+            ids[count[0]] = id;
+            frequencies[count[0]++] = f;
+        });
+        if (!inserted[0]) {
+            ids[count[0]] = filmId;
+            frequencies[count[0]++] = frequency;
+        }
+        return encode(ids, frequencies, count[0]);
+    }
+
+    /**
+     * Новый список с фильмами из накопителя за один проход по текущему списку, а не по проходу на фильм,
+     * как при вызовах {@link #with(int, int)}. Частота из накопителя заменяет прежнюю.
+     */
+    PostingList withAll(Builder added) {
+        long[] pairs = added.sortedPairs();
+        int[] ids = new int[size + pairs.length];
+        int[] frequencies = new int[size + pairs.length];
+        int[] count = {0};
+        int[] next = {0};
+        forEach((id, f) -> {
+            while (next[0] < pairs.length && (int) (pairs[next[0]] >>> 32) <= id) {
+                ids[count[0]] = (int) (pairs[next[0]] >>> 32);
+                frequencies[count[0]++] = (int) pairs[next[0]++];
+                if (ids[count[0] - 1] == id) {
+                    return;
+                }
+            }
+            ids[count[0]] = id;
+            frequencies[count[0]++] = f;
+        });
+        for (; next[0] < pairs.length; next[0]++) {
+            ids[count[0]] = (int) (pairs[next[0]] >>> 32);
+            frequencies[count[0]++] = (int) pairs[next[0]];
+        }
+        return encode(ids, frequencies, count[0]);
+    }
+
+    PostingList without(int filmId) {
+        int[] ids = new int[size];
+        int[] frequencies = new int[size];
+        int[] count = {0};
+        forEach((id, f) -> {
+            if (id != filmId) {
+                ids[count[0]] = id;
+                frequencies[count[0]++] = f;
+            }
+        });
+        return count[0] == size ? this : encode(ids, frequencies, count[0]);
+    }
+
+    private static void writeVarInt(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    @FunctionalInterface
+    interface PostingConsumer {
+        void accept(int filmId, int frequency);
+    }
+
+    /**
+     * Накопитель пар при загрузке индекса и пакетном добавлении: пары могут приходить в любом порядке,
+     * один фильм добавляется не больше одного раза.
+     */
+    static final class Builder {
+        private long[] pairs = new long[4];
+        private int size;
+
+        void add(int filmId, int frequency) {
+            if (size == pairs.length) {
+                pairs = Arrays.copyOf(pairs, size * 2);
+            }
+            pairs[size++] = ((long) filmId << 32) | frequency;
+        }
+
+        PostingList build() {
+            return EMPTY.withAll(this);
+        }
+
+        private long[] sortedPairs() {
+            long[] sorted = Arrays.copyOf(pairs, size);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+}
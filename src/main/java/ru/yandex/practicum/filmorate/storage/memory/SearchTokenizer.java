@@ -0,0 +1,90 @@
+package ru.yandex.practicum.filmorate.storage.memory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Разбиение текста на слова для поиска: нижний регистр, ё заменяется на е, разделитель — любой символ,
+ * кроме букв и цифр. Основы слов получаются отсечением типичных окончаний, отдельно для кириллицы и латиницы,
+ * так что «матрица» и «матрицы», «movie» и «movies» дают одну основу.
+ */
+final class SearchTokenizer {
+    private static final int MAX_TOKEN_LENGTH = 40;
+    private static final int MIN_STEM_LENGTH = 3;
+    // Сначала длинные окончания, чтобы «ами» отсекалось целиком, а не одной «и»
+    private static final String[] RUSSIAN_ENDINGS = {
+            "иями", "ями", "ами", "ого", "его", "ому", "ему", "ыми", "ими", "ией",
+            "ий", "ый", "ой", "ая", "яя", "ое", "ее", "ие", "ые", "ов", "ев", "ей", "ам", "ям", "ах", "ях",
+            "ом", "ем", "ую", "юю", "ия", "ья",
+            "а", "я", "о", "е", "ы", "и", "у", "ю", "ь", "й"
+    };
+
+    private SearchTokenizer() {
+    }
+
+    /**
+     * Нормализованные слова текста без отсечения окончаний, в порядке следования.
+     */
+    static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) {
+            return words;
+        }
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                c = Character.toLowerCase(c);
+                if (word.length() < MAX_TOKEN_LENGTH) {
+                    word.append(c == 'ё' ? 'е' : c);
+                }
+            } else if (!word.isEmpty()) {
+                words.add(word.toString());
+                word.setLength(0);
+            }
+        }
+        if (!word.isEmpty()) {
+            words.add(word.toString());
+        }
+        return words;
+    }
+
+    static String stem(String word) {
+        char first = word.charAt(0);
+        if (first >= 'а' && first <= 'я') {
+            return stemRussian(word);
+        }
+        if (first >= 'a' && first <= 'z') {
+            return stemEnglish(word);
+        }
+        return word;
+    }
+
+    private static String stemRussian(String word) {
+        for (String ending : RUSSIAN_ENDINGS) {
+            if (word.endsWith(ending) && word.length() - ending.length() >= MIN_STEM_LENGTH) {
+                return word.substring(0, word.length() - ending.length());
+            }
+        }
+        return word;
+    }
+
+    private static String stemEnglish(String word) {
+        String stem = word;
+        if (stem.endsWith("ies") && stem.length() > 4) {
+            stem = stem.substring(0, stem.length() - 3) + "i";
+        } else if (stem.endsWith("es") && stem.length() > 4 && "sxzh".indexOf(stem.charAt(stem.length() - 3)) >= 0) {
+            stem = stem.substring(0, stem.length() - 2);
+        } else if (stem.endsWith("s") && !stem.endsWith("ss") && stem.length() > MIN_STEM_LENGTH) {
+            stem = stem.substring(0, stem.length() - 1);
+        } else if (stem.endsWith("ing") && stem.length() - 3 >= MIN_STEM_LENGTH + 1) {
+            stem = stem.substring(0, stem.length() - 3);
+        } else if (stem.endsWith("ed") && stem.length() - 2 >= MIN_STEM_LENGTH) {
+            stem = stem.substring(0, stem.length() - 2);
+        }
+        if (stem.endsWith("e") && stem.length() > MIN_STEM_LENGTH) {
+            stem = stem.substring(0, stem.length() - 1);
+        }
+        return stem;
+    }
+}
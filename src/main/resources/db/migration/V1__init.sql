@@ -1,5 +1,3 @@
-DROP TABLE IF EXISTS users, films, MPA, genres, friends, film_likes, film_genre CASCADE;
-
 CREATE TABLE IF NOT EXISTS MPA (
     rating_mpa_id INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
     name VARCHAR(100) NOT NULL UNIQUE
@@ -43,4 +41,4 @@ CREATE TABLE IF NOT EXISTS friends (
     user_id integer REFERENCES users (user_id) ON DELETE CASCADE NOT NULL,
     friend_id integer REFERENCES users (user_id) ON DELETE CASCADE NOT NULL,
     PRIMARY KEY (user_id, friend_id)
-);
\ No newline at end of file
+);
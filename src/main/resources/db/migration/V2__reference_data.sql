@@ -0,0 +1,18 @@
+INSERT INTO genres (genre_id, name)
+SELECT v.id, v.name
+FROM (VALUES (1, 'Комедия'),
+             (2, 'Драма'),
+             (3, 'Мультфильм'),
+             (4, 'Триллер'),
+             (5, 'Документальный'),
+             (6, 'Боевик')) AS v (id, name)
+WHERE NOT EXISTS (SELECT 1 FROM genres g WHERE g.genre_id = v.id);
+
+INSERT INTO MPA (rating_mpa_id, name)
+SELECT v.id, v.name
+FROM (VALUES (1, 'G'),
+             (2, 'PG'),
+             (3, 'PG-13'),
+             (4, 'R'),
+             (5, 'NC-17')) AS v (id, name)
+WHERE NOT EXISTS (SELECT 1 FROM MPA m WHERE m.rating_mpa_id = v.id);
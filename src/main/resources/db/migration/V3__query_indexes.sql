@@ -0,0 +1,6 @@
+-- Первичные ключи покрывают поиск по первой колонке; обратные направления нужны отдельные индексы:
+-- лайки фильма, входящие заявки в друзья (каскадное удаление пользователя), фильмы жанра и рейтинга.
+CREATE INDEX IF NOT EXISTS film_likes_film_id_idx ON film_likes (film_id);
+CREATE INDEX IF NOT EXISTS friends_friend_id_idx ON friends (friend_id);
+CREATE INDEX IF NOT EXISTS film_genre_genre_id_idx ON film_genre (genre_id);
+CREATE INDEX IF NOT EXISTS films_mpa_id_idx ON films (mpa_id);
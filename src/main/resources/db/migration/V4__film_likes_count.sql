@@ -0,0 +1,6 @@
+-- Денормализованный счётчик лайков: поддерживается в той же транзакции, что и film_likes
+ALTER TABLE films ADD COLUMN IF NOT EXISTS likes_count BIGINT DEFAULT 0 NOT NULL;
+
+UPDATE films f SET likes_count = (SELECT COUNT(*) FROM film_likes fl WHERE fl.film_id = f.film_id);
+
+CREATE INDEX IF NOT EXISTS films_likes_count_idx ON films (likes_count DESC, film_id);
@@ -0,0 +1,12 @@
+-- Журнал изменений для согласования состояния в памяти между экземплярами приложения.
+-- Запись добавляется в той же транзакции, что и само изменение; экземпляры читают журнал по seq
+CREATE TABLE IF NOT EXISTS change_log (
+    seq BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    node_id VARCHAR(36) NOT NULL,
+    kind VARCHAR(32) NOT NULL,
+    entity_id INT NOT NULL,
+    related_id INT,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS change_log_created_at_idx ON change_log (created_at);
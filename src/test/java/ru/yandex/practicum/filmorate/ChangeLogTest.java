@@ -0,0 +1,171 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.dao.FilmDbStorage;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.Change;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Два экземпляра приложения на одной базе: изменения одного доходят до памяти другого через change_log.
+ */
+public class ChangeLogTest {
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    private ConfigurableApplicationContext nodeA;
+    private ConfigurableApplicationContext nodeB;
+
+    @BeforeEach
+    public void setUp() {
+        String database = "change-log-" + UUID.randomUUID();
+        nodeA = startNode(database);
+        nodeB = startNode(database);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        nodeB.close();
+        nodeA.close();
+    }
+
+    @Test
+    @DisplayName("Изменение фильма и лайк на одном экземпляре видны другому")
+    public void testFilmChangesReachOtherNode() {
+        FilmStorage filmsA = nodeA.getBean(FilmStorage.class);
+        FilmStorage filmsB = nodeB.getBean(FilmStorage.class);
+        User user = nodeA.getBean(UserStorage.class).addUser(user("liker"));
+        Film first = filmsA.addFilm(film("Первый"));
+        Film second = filmsA.addFilm(film("Второй"));
+        waitFor(() -> filmsB.getTopFilms(10).size() == 2);
+
+        // Фильм попадает в кэш второго экземпляра до изменения
+        assertEquals("Первый", filmsB.getFilmById(first.getId()).orElseThrow().getName());
+        first.setName("Первый, обновлённый");
+        filmsA.updateFilm(first);
+        filmsA.addLike(second.getId(), user.getId());
+
+        waitFor(() -> filmsB.getFilmById(first.getId()).orElseThrow().getName().equals("Первый, обновлённый"));
+        waitFor(() -> filmsB.getTopFilms(1).get(0).getId().equals(second.getId()));
+    }
+
+    @Test
+    @DisplayName("Дружба, добавленная на одном экземпляре, видна другому")
+    public void testFriendChangesReachOtherNode() {
+        UserStorage usersA = nodeA.getBean(UserStorage.class);
+        UserStorage usersB = nodeB.getBean(UserStorage.class);
+        User user = usersA.addUser(user("first"));
+        User friend = usersA.addUser(user("second"));
+        assertTrue(usersB.getUserFriends(user.getId()).isEmpty());
+        assertEquals(2, nodeB.getBean(JdbcTemplate.class).queryForObject(
+                "SELECT COUNT(*) FROM change_log WHERE kind = 'USER_CREATED'", Integer.class));
+
+        usersA.addFriend(user.getId(), friend.getId());
+        waitFor(() -> usersB.hasFriend(user.getId(), friend.getId()));
+
+        usersA.removeFriend(user.getId(), friend.getId());
+        waitFor(() -> !usersB.hasFriend(user.getId(), friend.getId()));
+    }
+
+    @Test
+    @DisplayName("Изменения, пришедшие не по порядку seq, не теряют фильм и не возвращают удалённый")
+    public void testOutOfOrderChanges() {
+        FilmDbStorage filmsB = nodeB.getBean(FilmDbStorage.class);
+        JdbcTemplate jdbcTemplate = nodeB.getBean(JdbcTemplate.class);
+        int userId = nodeA.getBean(UserStorage.class).addUser(user("liker")).getId();
+        // Фильмы пишутся в обход хранилища, и изменения доставляются вручную в нужном порядке
+        int quietId = insertFilm(jdbcTemplate, 0);
+        int likedId = insertFilm(jdbcTemplate, 1);
+        jdbcTemplate.update("INSERT INTO film_likes (user_id, film_id) VALUES (?, ?)", userId, likedId);
+
+        filmsB.onChanges(List.of(change(1, Change.Kind.FILM_CREATED, quietId, null)));
+        // Лайк пришёл раньше запоздавшей записи о создании фильма
+        filmsB.onChanges(List.of(change(3, Change.Kind.LIKE_ADDED, likedId, userId)));
+        filmsB.onChanges(List.of(change(2, Change.Kind.FILM_CREATED, likedId, null)));
+        assertEquals(List.of(likedId, quietId), filmsB.getPopularFilms(10, 1, 1999, 1).stream()
+                .map(Film::getId)
+                .toList());
+
+        jdbcTemplate.update("DELETE FROM film_likes WHERE film_id = ?", likedId);
+        jdbcTemplate.update("DELETE FROM film_genre WHERE film_id = ?", likedId);
+        jdbcTemplate.update("DELETE FROM films WHERE film_id = ?", likedId);
+        filmsB.onChanges(List.of(change(5, Change.Kind.FILM_DELETED, likedId, null)));
+        // Запоздавший лайк удалённого фильма
+        filmsB.onChanges(List.of(change(4, Change.Kind.LIKE_ADDED, likedId, userId)));
+        filmsB.onChanges(List.of(change(6, Change.Kind.FILM_CREATED, likedId, null)));
+        assertEquals(Set.of(quietId), filmsB.findExistingFilmIds(List.of(quietId, likedId)));
+    }
+
+    private static int insertFilm(JdbcTemplate jdbcTemplate, int likes) {
+        jdbcTemplate.update("INSERT INTO films (name, description, release_date, duration, mpa_id, likes_count) "
+                + "VALUES ('Фильм', 'Описание', DATE '1999-01-01', 100, 1, ?)", likes);
+        int filmId = jdbcTemplate.queryForObject("SELECT MAX(film_id) FROM films", Integer.class);
+        jdbcTemplate.update("INSERT INTO film_genre (film_id, genre_id) VALUES (?, 1)", filmId);
+        return filmId;
+    }
+
+    private static Change change(long seq, Change.Kind kind, int entityId, Integer relatedId) {
+        return new Change(seq, "other-node", kind, entityId, relatedId);
+    }
+
+    private static ConfigurableApplicationContext startNode(String database) {
+        String url = "jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1";
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(FilmorateApplication.class)
+                .run("--spring.main.web-application-type=none",
+                        "--spring.datasource.url=" + url,
+                        "--filmorate.change-log.poll-interval-ms=50");
+        // Аргументы командной строки важнее application.properties, где указана файловая база
+        assertEquals(url, context.getEnvironment().getProperty("spring.datasource.url"));
+        return context;
+    }
+
+    private static void waitFor(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Изменение не дошло до второго экземпляра");
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private static Film film(String name) {
+        Film film = new Film();
+        film.setName(name);
+        film.setDescription("Описание");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(100);
+        film.setMpa(new Mpa(1, "G"));
+        return film;
+    }
+
+    private static User user(String login) {
+        User user = new User();
+        user.setEmail(login + "@example.com");
+        user.setLogin(login);
+        user.setName(login);
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        return user;
+    }
+}
@@ -0,0 +1,129 @@
+package ru.yandex.practicum.filmorate;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:conditional-get;DB_CLOSE_DELAY=-1")
+@AutoConfigureMockMvc
+@DirtiesContext
+public class ConditionalGetTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Фильм: 200, затем 304 по ETag и Last-Modified, после изменения снова 200")
+    public void testFilmNotModifiedUntilChanged() throws Exception {
+        int id = create("/films", film("Фильм"));
+        MvcResult first = mockMvc.perform(get("/films/" + id))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andReturn();
+        String etag = first.getResponse().getHeader(HttpHeaders.ETAG);
+        String lastModified = first.getResponse().getHeader(HttpHeaders.LAST_MODIFIED);
+
+        mockMvc.perform(get("/films/" + id).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        mockMvc.perform(get("/films/" + id).header(HttpHeaders.IF_MODIFIED_SINCE, lastModified))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(put("/films/" + id + "/like/" + create("/users", user("liker"))))
+                .andExpect(status().is2xxSuccessful());
+        String changed = mockMvc.perform(get("/films/" + id).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(etag, changed);
+        mockMvc.perform(get("/films/" + id).header(HttpHeaders.IF_NONE_MATCH, changed))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    @DisplayName("Перезагрузка справочников меняет ETag фильмов и жанров")
+    public void testReferenceDataReloadChangesFilmEtag() throws Exception {
+        int id = create("/films", film("Комедия без названия"));
+        String filmEtag = etag("/films/" + id);
+        String popularEtag = etag("/films/popular");
+        String genresEtag = etag("/genres");
+
+        jdbcTemplate.update("UPDATE genres SET name = 'Кинокомедия' WHERE genre_id = 1");
+        mockMvc.perform(post("/reference-data/reload")).andExpect(status().is2xxSuccessful());
+
+        MvcResult reloaded = mockMvc.perform(get("/films/" + id).header(HttpHeaders.IF_NONE_MATCH, filmEtag))
+                .andExpect(status().isOk())
+                .andReturn();
+        JsonNode film = objectMapper.readTree(reloaded.getResponse().getContentAsString(StandardCharsets.UTF_8));
+        assertEquals("Кинокомедия", film.get("genres").get(0).get("name").asText());
+        mockMvc.perform(get("/films/popular").header(HttpHeaders.IF_NONE_MATCH, popularEtag))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/genres").header(HttpHeaders.IF_NONE_MATCH, genresEtag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("Пользователь: 304 до обновления и 200 после")
+    public void testUserNotModifiedUntilUpdated() throws Exception {
+        int id = create("/users", user("etag"));
+        String etag = etag("/users/" + id);
+        mockMvc.perform(get("/users/" + id).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(put("/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(user("etag").replace("{", "{\"id\":" + id + ",").replace("User", "Renamed")))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/users/" + id).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("Renamed")));
+    }
+
+    private String etag(String uri) throws Exception {
+        return mockMvc.perform(get(uri))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+
+    private int create(String uri, String body) throws Exception {
+        String response = mockMvc.perform(post(uri).contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().is2xxSuccessful())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(response).get("id").asInt();
+    }
+
+    private static String film(String name) {
+        return "{\"name\":\"" + name + "\",\"description\":\"Описание\",\"releaseDate\":\"2000-01-01\","
+                + "\"duration\":100,\"mpa\":{\"id\":1},\"genres\":[{\"id\":1}]}";
+    }
+
+    private static String user(String login) {
+        return "{\"email\":\"" + login + "@example.com\",\"login\":\"" + login + "\",\"name\":\"User\","
+                + "\"birthday\":\"1990-01-01\"}";
+    }
+}
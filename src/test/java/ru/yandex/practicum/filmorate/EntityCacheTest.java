@@ -0,0 +1,83 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.storage.memory.EntityCache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class EntityCacheTest {
+    private EntityCache<String> cache;
+    private final List<List<Integer>> loads = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp() {
+        cache = new EntityCache<>(100, Duration.ofMinutes(5), Integer::valueOf);
+        loads.clear();
+    }
+
+    @Test
+    @DisplayName("Загруженные сущности берутся из кэша, отсутствующие пропускаются")
+    public void testGetAll() {
+        assertEquals(List.of("1", "2"), cache.getAll(List.of(1, 2, 5), this::load));
+        assertEquals(List.of("2", "1", "4"), cache.getAll(List.of(2, 1, 4), this::load));
+        assertEquals(List.of(List.of(1, 2, 5), List.of(4)), loads);
+    }
+
+    @Test
+    @DisplayName("Сброс другого id во время загрузки не мешает заполнению кэша")
+    public void testInvalidationOfOtherKeyKeepsLoad() {
+        cache.getAll(List.of(1, 2), ids -> {
+            cache.invalidate(7);
+            return load(ids);
+        });
+        cache.getAll(List.of(1, 2), this::load);
+        assertEquals(1, loads.size());
+    }
+
+    @Test
+    @DisplayName("Сброс id во время загрузки убирает только эту запись")
+    public void testInvalidationDuringLoadDropsOnlyThatKey() {
+        cache.getAll(List.of(1, 2), ids -> {
+            cache.invalidate(2);
+            return load(ids);
+        });
+        cache.getAll(List.of(1, 2), this::load);
+        assertEquals(List.of(List.of(1, 2), List.of(2)), loads);
+    }
+
+    @Test
+    @DisplayName("Сброс всего кэша во время загрузки убирает все загруженные записи")
+    public void testInvalidateAllDuringLoad() {
+        cache.getAll(List.of(1, 2), ids -> {
+            cache.invalidateAll();
+            return load(ids);
+        });
+        cache.getAll(List.of(1, 2), this::load);
+        assertEquals(List.of(List.of(1, 2), List.of(1, 2)), loads);
+    }
+
+    @Test
+    @DisplayName("Выключенный кэш всегда читает из источника")
+    public void testDisabledCache() {
+        EntityCache<String> disabled = new EntityCache<>(0, Duration.ofMinutes(5), Integer::valueOf);
+        Function<List<Integer>, List<String>> loader = this::load;
+        disabled.getAll(List.of(1), loader);
+        disabled.getAll(List.of(1), loader);
+        assertEquals(2, loads.size());
+    }
+
+    /**
+     * Сущности с id больше 4 не существуют.
+     */
+    private List<String> load(List<Integer> ids) {
+        loads.add(List.copyOf(ids));
+        return ids.stream().filter(id -> id <= 4).map(String::valueOf).toList();
+    }
+}
@@ -0,0 +1,135 @@
+package ru.yandex.practicum.filmorate;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.yandex.practicum.filmorate.dao.ExportDbStorage;
+import ru.yandex.practicum.filmorate.dao.ReferenceDataRegistry;
+import ru.yandex.practicum.filmorate.service.ExportService;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@JdbcTest
+@Import({ExportService.class, ExportDbStorage.class, ReferenceDataRegistry.class})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+public class ExportTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ExportService exportService;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    public void setUp() {
+        jdbcTemplate.update("INSERT INTO users (user_id, name, email, login, birthday) VALUES "
+                + "(1, 'Первый', 'first@example.com', 'first', '1990-01-01'), "
+                + "(2, 'Второй', 'second@example.com', 'second', '1991-02-02')");
+        jdbcTemplate.update("INSERT INTO films (film_id, name, description, release_date, duration, mpa_id) VALUES "
+                + "(1, 'Фильм', 'Описание', '2000-01-01', 100, 3), "
+                + "(2, 'Без даты', 'Описание', NULL, 90, 1)");
+        jdbcTemplate.update("INSERT INTO film_genre (film_id, genre_id) VALUES (1, 2), (1, 1)");
+        jdbcTemplate.update("INSERT INTO film_likes (film_id, user_id) VALUES (1, 1), (1, 2)");
+        jdbcTemplate.update("INSERT INTO friends (user_id, friend_id) VALUES (1, 2)");
+    }
+
+    @Test
+    @DisplayName("Фильмы выгружаются по одному на строку вместе с жанрами и MPA")
+    public void testExportFilms() throws IOException {
+        List<JsonNode> films = export(exportService::exportFilms);
+
+        assertEquals(2, films.size());
+        JsonNode film = films.get(0);
+        assertEquals(1, film.get("id").asInt());
+        assertEquals("2000-01-01", film.get("releaseDate").asText());
+        assertEquals("PG-13", film.get("mpa").get("name").asText());
+        assertEquals(2, film.get("genres").size());
+        assertEquals("Комедия", film.get("genres").get(0).get("name").asText());
+        assertEquals("Драма", film.get("genres").get(1).get("name").asText());
+
+        JsonNode withoutGenres = films.get(1);
+        assertEquals(2, withoutGenres.get("id").asInt());
+        assertTrue(withoutGenres.get("releaseDate").isNull());
+        assertEquals(0, withoutGenres.get("genres").size());
+    }
+
+    @Test
+    @DisplayName("Пользователи, лайки и дружба выгружаются построчно")
+    public void testExportUsersLikesAndFriends() throws IOException {
+        List<JsonNode> users = export(exportService::exportUsers);
+        assertEquals(2, users.size());
+        assertEquals("first", users.get(0).get("login").asText());
+        assertEquals("1991-02-02", users.get(1).get("birthday").asText());
+
+        List<JsonNode> likes = export(exportService::exportLikes);
+        assertEquals(2, likes.size());
+        likes.forEach(like -> assertEquals(1, like.get("filmId").asInt()));
+
+        List<JsonNode> friends = export(exportService::exportFriendships);
+        assertEquals(1, friends.size());
+        assertEquals(1, friends.get(0).get("userId").asInt());
+        assertEquals(2, friends.get(0).get("friendId").asInt());
+    }
+
+    @Test
+    @DisplayName("Ошибка записи в поток прерывает выгрузку")
+    public void testExportStopsWhenClientDisconnects() {
+        List<Object[]> users = new ArrayList<>();
+        for (int i = 3; i <= 5000; i++) {
+            users.add(new Object[]{i, "u" + i});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (user_id, name, email, login, birthday) "
+                + "VALUES (?, ?, 'user@example.com', 'login', '1990-01-01')", users);
+        int[] written = new int[1];
+        OutputStream disconnected = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                written[0]++;
+                throw new IOException("Соединение закрыто клиентом");
+            }
+        };
+
+        IOException e = assertThrows(IOException.class, () -> exportService.exportUsers(disconnected));
+        assertEquals("Соединение закрыто клиентом", e.getMessage());
+        // Вторая попытка — сброс буфера при закрытии генератора, строки после ошибки уже не читаются
+        assertTrue(written[0] <= 2, "После первой ошибки выгрузка не продолжается");
+    }
+
+    private List<JsonNode> export(Export export) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        export.to(out);
+        List<JsonNode> rows = new ArrayList<>();
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            rows.add(objectMapper.readTree(line));
+        }
+        return rows;
+    }
+
+    @FunctionalInterface
+    private interface Export {
+        void to(OutputStream out) throws IOException;
+    }
+}
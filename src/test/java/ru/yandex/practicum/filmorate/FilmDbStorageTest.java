@@ -1,29 +1,41 @@
 package ru.yandex.practicum.filmorate;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Like;
 import ru.yandex.practicum.filmorate.model.Mpa;
 import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.dao.ChangeLog;
 import ru.yandex.practicum.filmorate.dao.FilmDbStorage;
+import ru.yandex.practicum.filmorate.dao.ReferenceDataRegistry;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.NoSuchElementException;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 @JdbcTest
+@Import({FilmDbStorage.class, ReferenceDataRegistry.class, ChangeLog.class, SimpleMeterRegistry.class})
 @DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
 public class FilmDbStorageTest {
 
     @Autowired
     private JdbcTemplate jdbcTemplate;
+    @Autowired
     private FilmStorage filmStorage;
     private Film testFilm1;
     private Film testFilm2;
@@ -31,7 +43,6 @@ public class FilmDbStorageTest {
     @BeforeEach
     public void setUp() {
         jdbcTemplate.update("DELETE FROM films");
-        filmStorage = new FilmDbStorage(jdbcTemplate);
         testFilm1 = new Film();
         testFilm1.setName("Test Film 1");
         testFilm1.setDescription("Description for test film 1");
@@ -86,4 +97,198 @@ public class FilmDbStorageTest {
         assertTrue(films.stream().anyMatch(film -> film.getName().equals("Test Film 1")));
         assertTrue(films.stream().anyMatch(film -> film.getName().equals("Test Film 2")));
     }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DisplayName("Проверка получения популярных фильмов")
+    public void testGetTopFilms() {
+        Film film1 = filmStorage.addFilm(testFilm1);
+        Film film2 = filmStorage.addFilm(testFilm2);
+        jdbcTemplate.update("INSERT INTO users (email, login, name, birthday) VALUES (?, ?, ?, ?)",
+                "user@example.com", "user", "User", LocalDate.of(1990, 1, 1));
+        Integer userId = jdbcTemplate.queryForObject("SELECT MAX(user_id) FROM users", Integer.class);
+
+        filmStorage.addLike(film2.getId(), userId);
+        List<Film> topFilms = filmStorage.getTopFilms(10);
+        assertEquals(List.of(film2.getId(), film1.getId()), topFilms.stream().map(Film::getId).toList());
+
+        filmStorage.removeLike(film2.getId(), userId);
+        topFilms = filmStorage.getTopFilms(1);
+        assertEquals(List.of(film1.getId()), topFilms.stream().map(Film::getId).toList());
+    }
+
+    @Test
+    @DisplayName("Проверка получения фильма с жанрами и рейтингом MPA")
+    public void testGetFilmByIdWithGenresAndMpa() {
+        testFilm1.setGenres(new LinkedHashSet<>(List.of(new Genre(2, null), new Genre(1, null))));
+        Film savedFilm = filmStorage.addFilm(testFilm1);
+
+        Film film = filmStorage.getFilmById(savedFilm.getId()).orElseThrow();
+        assertEquals("G", film.getMpa().getName());
+        assertEquals(List.of(new Genre(1, "Комедия"), new Genre(2, "Драма")), new ArrayList<>(film.getGenres()));
+        assertEquals(0, film.getLikesCount());
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DisplayName("Проверка пакетного добавления фильмов и лайков")
+    public void testAddFilmsAndLikesInBatch() {
+        // Без транзакции теста: счётчики в памяти обновляются после фиксации
+        List<Film> films = filmStorage.addFilms(List.of(testFilm1, testFilm2));
+        assertNotNull(films.get(0).getId());
+        assertNotNull(films.get(1).getId());
+
+        jdbcTemplate.update("INSERT INTO users (email, login, name, birthday) VALUES (?, ?, ?, ?)",
+                "user@example.com", "user", "User", LocalDate.of(1990, 1, 1));
+        long userId = jdbcTemplate.queryForObject("SELECT MAX(user_id) FROM users", Long.class);
+        long filmId = films.get(1).getId();
+
+        assertEquals(1, filmStorage.addLikes(List.of(new Like(filmId, userId), new Like(filmId, userId))));
+        assertEquals(0, filmStorage.addLikes(List.of(new Like(filmId, userId))));
+        assertEquals(1, filmStorage.getFilmById(films.get(1).getId()).orElseThrow().getLikesCount());
+    }
+
+    @Test
+    @DisplayName("Повторный лайк не приводит к ошибке")
+    public void testRepeatedLikeIsIgnored() {
+        Film film = filmStorage.addFilm(testFilm1);
+        jdbcTemplate.update("INSERT INTO users (email, login, name, birthday) VALUES (?, ?, ?, ?)",
+                "user@example.com", "user", "User", LocalDate.of(1990, 1, 1));
+        int userId = jdbcTemplate.queryForObject("SELECT MAX(user_id) FROM users", Integer.class);
+
+        filmStorage.addLike(film.getId(), userId);
+        filmStorage.addLike(film.getId(), userId);
+        assertEquals(1, filmStorage.getFilmById(film.getId()).orElseThrow().getLikesCount());
+
+        Like like = new Like((long) film.getId(), (long) userId);
+        assertEquals(1, filmStorage.removeLikes(List.of(like, like)));
+        assertEquals(0, filmStorage.removeLikes(List.of(like)));
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DisplayName("Проверка рекомендаций фильмов по похожим пользователям")
+    public void testGetRecommendations() {
+        Film film1 = filmStorage.addFilm(testFilm1);
+        Film film2 = filmStorage.addFilm(testFilm2);
+        for (String login : List.of("first", "second")) {
+            jdbcTemplate.update("INSERT INTO users (email, login, name, birthday) VALUES (?, ?, ?, ?)",
+                    login + "@example.com", login, login, LocalDate.of(1990, 1, 1));
+        }
+        List<Integer> userIds = jdbcTemplate.queryForList("SELECT user_id FROM users ORDER BY user_id", Integer.class);
+
+        filmStorage.addLike(film1.getId(), userIds.get(0));
+        filmStorage.addLike(film1.getId(), userIds.get(1));
+        filmStorage.addLike(film2.getId(), userIds.get(1));
+
+        List<Film> recommendations = filmStorage.getRecommendations(userIds.get(0), 10);
+        assertEquals(List.of(film2.getId()), recommendations.stream().map(Film::getId).toList());
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DisplayName("Счётчик лайков хранится в таблице фильмов и восстанавливается сверкой")
+    public void testLikesCountColumn() {
+        Film film = filmStorage.addFilm(testFilm1);
+        for (String login : List.of("first", "second")) {
+            jdbcTemplate.update("INSERT INTO users (email, login, name, birthday) VALUES (?, ?, ?, ?)",
+                    login + "@example.com", login, login, LocalDate.of(1990, 1, 1));
+        }
+        List<Integer> userIds = jdbcTemplate.queryForList("SELECT user_id FROM users ORDER BY user_id", Integer.class);
+
+        filmStorage.addLike(film.getId(), userIds.get(0));
+        assertEquals(1L, jdbcTemplate.queryForObject("SELECT likes_count FROM films WHERE film_id = ?",
+                Long.class, film.getId()));
+
+        // Лайк в обход хранилища: счётчик расходится, пока не выполнена сверка
+        jdbcTemplate.update("INSERT INTO film_likes (user_id, film_id) VALUES (?, ?)", userIds.get(1), film.getId());
+        assertEquals(1, filmStorage.repairLikeCounts());
+        assertEquals(2, filmStorage.getFilmById(film.getId()).orElseThrow().getLikesCount());
+        assertEquals(film.getId(), filmStorage.getTopFilms(1).get(0).getId());
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DisplayName("Популярные фильмы с фильтрами по жанру, году и MPA")
+    public void testGetPopularFilmsByFacets() {
+        testFilm1.setGenres(new LinkedHashSet<>(List.of(new Genre(1, null), new Genre(2, null))));
+        testFilm2.setGenres(new LinkedHashSet<>(List.of(new Genre(2, null))));
+        Film film1 = filmStorage.addFilm(testFilm1);
+        Film film2 = filmStorage.addFilm(testFilm2);
+
+        assertEquals(List.of(film1.getId()), filmStorage.getPopularFilms(10, 1, null, null).stream()
+                .map(Film::getId).toList());
+        assertEquals(List.of(film2.getId()), filmStorage.getPopularFilms(10, 2, 2005, 2).stream()
+                .map(Film::getId).toList());
+        assertTrue(filmStorage.getPopularFilms(10, 2, 2005, 1).isEmpty());
+
+        // После изменения фильм переходит в рейтинги нового года и MPA, жанры остаются прежними
+        film1.setReleaseDate(LocalDate.of(2005, 6, 6));
+        film1.setMpa(new Mpa(2, "PG"));
+        filmStorage.updateFilm(film1);
+        assertEquals(2, filmStorage.getPopularFilms(10, 2, 2005, 2).size());
+        assertEquals(List.of(film1.getId()), filmStorage.getPopularFilms(10, 1, 2005, null).stream()
+                .map(Film::getId).toList());
+
+        // Фильм без даты выхода попадает в рейтинги жанров и MPA, но не годов
+        jdbcTemplate.update("INSERT INTO films (name, description, release_date, duration, mpa_id) "
+                + "VALUES ('Без даты', 'Описание', NULL, 90, 5)");
+        filmStorage.repairLikeCounts();
+        List<Film> undated = filmStorage.getPopularFilms(10, null, null, 5);
+        assertEquals(1, undated.size());
+        assertNull(undated.get(0).getReleaseDate());
+        assertEquals(2, filmStorage.getPopularFilms(10, null, 2005, null).size());
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DisplayName("Поиск по названию и описанию с учётом словоформ и префикса")
+    public void testSearchFilms() {
+        testFilm1.setName("Матрица");
+        testFilm1.setDescription("Хакер узнаёт правду о мире машин");
+        testFilm2.setName("Star Wars");
+        testFilm2.setDescription("Movies about a galaxy far away and the matrix of stars");
+        Film matrix = filmStorage.addFilm(testFilm1);
+        Film starWars = filmStorage.addFilm(testFilm2);
+
+        assertEquals(List.of(matrix.getId()), searchIds("матрицы"));
+        assertEquals(List.of(matrix.getId()), searchIds("Узнает"));
+        assertEquals(List.of(matrix.getId()), searchIds("мат"));
+        assertEquals(List.of(starWars.getId()), searchIds("star movie"));
+
+        // Обновлённый текст попадает в индекс, удалённый фильм из него исчезает
+        matrix.setName("Перезагрузка");
+        filmStorage.updateFilm(matrix);
+        assertTrue(searchIds("матрица").isEmpty());
+        assertEquals(List.of(matrix.getId()), searchIds("перезагрузки"));
+        filmStorage.deleteFilm(starWars.getId());
+        assertTrue(searchIds("star").isEmpty());
+    }
+
+    private List<Integer> searchIds(String query) {
+        return filmStorage.searchFilms(query, 10, 0).stream().map(Film::getId).toList();
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DisplayName("Кэш фильмов сбрасывается при лайке и обновлении фильма")
+    public void testFilmCacheInvalidation() {
+        // Без транзакции теста: внутри транзакции кэш не используется
+        Film film = filmStorage.addFilm(testFilm1);
+        jdbcTemplate.update("INSERT INTO users (email, login, name, birthday) VALUES (?, ?, ?, ?)",
+                "user@example.com", "user", "User", LocalDate.of(1990, 1, 1));
+        Integer userId = jdbcTemplate.queryForObject("SELECT MAX(user_id) FROM users", Integer.class);
+
+        assertEquals(0, filmStorage.getFilmById(film.getId()).orElseThrow().getLikesCount());
+        filmStorage.addLike(film.getId(), userId);
+        assertEquals(1, filmStorage.getFilmById(film.getId()).orElseThrow().getLikesCount());
+
+        film.setName("Новое название");
+        filmStorage.updateFilm(film);
+        assertEquals("Новое название", filmStorage.getFilmById(film.getId()).orElseThrow().getName());
+
+        // Изменение в обход хранилища не видно, пока запись не сброшена
+        jdbcTemplate.update("UPDATE films SET name = ? WHERE film_id = ?", "В обход хранилища", film.getId());
+        assertEquals("Новое название", filmStorage.getFilmById(film.getId()).orElseThrow().getName());
+    }
 }
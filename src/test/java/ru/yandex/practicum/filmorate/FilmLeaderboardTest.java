@@ -0,0 +1,93 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.storage.memory.FilmLeaderboard;
+import ru.yandex.practicum.filmorate.storage.memory.FilmLeaderboard.Facets;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FilmLeaderboardTest {
+    private FilmLeaderboard leaderboard;
+
+    @BeforeEach
+    public void setUp() {
+        Map<Integer, Long> likes = new HashMap<>();
+        Map<Integer, Facets> facets = new HashMap<>();
+        // Сотня драм 2000 года с рейтингом 1 и лайками по убыванию номера фильма
+        for (int filmId = 1; filmId <= 100; filmId++) {
+            likes.put(filmId, 1000L - filmId);
+            facets.put(filmId, new Facets(2000, 1, new int[]{2}));
+        }
+        // Редкий год среди драм и комедий
+        likes.put(101, 10L);
+        facets.put(101, new Facets(1999, 1, new int[]{1, 2}));
+        likes.put(102, 20L);
+        facets.put(102, new Facets(1999, 2, new int[]{2}));
+        likes.put(103, 5L);
+        facets.put(103, new Facets(1999, 1, new int[]{1}));
+        likes.put(104, 0L);
+        facets.put(104, new Facets(null, 3, new int[0]));
+        leaderboard = new FilmLeaderboard();
+        leaderboard.ensureLoaded(() -> likes, () -> facets);
+    }
+
+    @Test
+    @DisplayName("Топ без фильтров и с одним фильтром")
+    public void testTopBySingleFacet() {
+        assertEquals(List.of(1, 2, 3), leaderboard.top(3));
+        assertEquals(List.of(102, 101, 103), leaderboard.top(10, null, 1999, null));
+        assertEquals(List.of(101, 103), leaderboard.top(10, 1, null, null));
+        assertEquals(List.of(104), leaderboard.top(10, null, null, 3));
+        assertTrue(leaderboard.top(10, 6, null, null).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Несколько фильтров пересекают рейтинги")
+    public void testTopByIntersection() {
+        assertEquals(List.of(102, 101), leaderboard.top(10, 2, 1999, null));
+        assertEquals(List.of(101), leaderboard.top(10, 2, 1999, 1));
+        assertEquals(List.of(101, 103), leaderboard.top(10, 1, 1999, 1));
+        assertEquals(List.of(1, 2), leaderboard.top(2, 2, 2000, 1));
+        assertTrue(leaderboard.top(10, 1, 2000, null).isEmpty());
+        assertTrue(leaderboard.top(10, 2, 1888, null).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Лайки и новые признаки меняют порядок в рейтингах фильтров")
+    public void testUpdatesMoveFilmsBetweenRankings() {
+        for (int i = 0; i < 15; i++) {
+            leaderboard.increment(101);
+        }
+        assertEquals(List.of(101, 102), leaderboard.top(10, 2, 1999, null));
+
+        leaderboard.updateFacets(102, new Facets(2000, 1, new int[]{2}));
+        assertEquals(List.of(101), leaderboard.top(10, 2, 1999, null));
+        assertEquals(List.of(100, 102), leaderboard.top(200, 2, 2000, 1).subList(99, 101));
+
+        leaderboard.removeFilm(101);
+        assertTrue(leaderboard.top(10, 2, 1999, null).isEmpty());
+        assertEquals(List.of(103), leaderboard.top(10, 1, null, null));
+    }
+
+    @Test
+    @DisplayName("Лайки неизвестного фильма пропускаются, добавление из базы заменяет запись")
+    public void testUnknownFilmLikesAreIgnored() {
+        leaderboard.increment(200);
+        leaderboard.removeFilm(101);
+        leaderboard.increment(101);
+        assertFalse(leaderboard.contains(200));
+        assertFalse(leaderboard.contains(101));
+
+        leaderboard.putFilm(200, 3, new Facets(1999, 1, new int[]{1}));
+        assertEquals(List.of(103, 200), leaderboard.top(10, 1, 1999, 1));
+        leaderboard.putFilm(200, 7, new Facets(1999, 1, new int[]{1}));
+        assertEquals(List.of(200, 103), leaderboard.top(10, 1, 1999, 1));
+        assertEquals(7, leaderboard.getLikes(200));
+    }
+}
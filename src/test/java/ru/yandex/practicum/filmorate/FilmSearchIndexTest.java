@@ -0,0 +1,58 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.storage.memory.FilmSearchIndex;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class FilmSearchIndexTest {
+
+    @Test
+    @DisplayName("Пакетное добавление даёт тот же индекс, что и добавление по одному фильму")
+    public void testPutAllMatchesPut() {
+        FilmSearchIndex single = new FilmSearchIndex();
+        FilmSearchIndex batch = new FilmSearchIndex();
+        single.ensureLoaded(sink -> sink.accept(5, "Матрица", "Хакер узнаёт правду"));
+        batch.ensureLoaded(sink -> sink.accept(5, "Матрица", "Хакер узнаёт правду"));
+
+        for (int filmId = 1; filmId <= 9; filmId += 2) {
+            single.put(filmId, "Фильм " + filmId, "Хакер и машины");
+        }
+        batch.putAll(sink -> {
+            for (int filmId = 9; filmId >= 1; filmId -= 2) {
+                sink.accept(filmId, "Фильм " + filmId, "Хакер и машины");
+            }
+        });
+
+        assertEquals(single.size(), batch.size());
+        for (String query : new String[]{"хакер", "фильм", "машин", "матрица", "5"}) {
+            assertArrayEquals(single.search(query, 10, filmId -> 0, 0), batch.search(query, 10, filmId -> 0, 0),
+                    "Запрос " + query);
+        }
+    }
+
+    @Test
+    @DisplayName("Пакетное добавление заменяет прежний текст фильма")
+    public void testPutAllReplacesText() {
+        FilmSearchIndex index = new FilmSearchIndex();
+        index.ensureLoaded(sink -> {
+            sink.accept(1, "Матрица", "Хакер");
+            sink.accept(2, "Звёздные войны", "Галактика");
+        });
+
+        index.putAll(sink -> {
+            sink.accept(1, "Перезагрузка", "Хакер");
+            sink.accept(3, "Матрица", "Воскрешение");
+        });
+
+        assertEquals(3, index.size());
+        assertArrayEquals(new int[]{3}, index.search("матрица", 10, filmId -> 0, 0));
+        assertArrayEquals(new int[]{1}, index.search("перезагрузка", 10, filmId -> 0, 0));
+        assertArrayEquals(new int[]{2}, index.search("галактика", 10, filmId -> 0, 0));
+        index.putAll(sink -> {
+        });
+        assertEquals(3, index.size());
+    }
+}
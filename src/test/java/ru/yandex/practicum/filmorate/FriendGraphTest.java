@@ -0,0 +1,109 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.storage.memory.FriendGraph;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FriendGraphTest {
+    private FriendGraph graph;
+
+    @BeforeEach
+    public void setUp() {
+        graph = new FriendGraph();
+        graph.ensureLoaded(() -> Map.of(
+                1, new int[]{5, 2, 9, 3},
+                2, new int[]{3, 9, 1},
+                3, new int[]{}));
+    }
+
+    @Test
+    @DisplayName("Списки друзей после загрузки отсортированы")
+    public void testLoadSortsFriends() {
+        assertArrayEquals(new int[]{2, 3, 5, 9}, graph.getFriends(1));
+        assertArrayEquals(new int[]{1, 3, 9}, graph.getFriends(2));
+        assertArrayEquals(new int[0], graph.getFriends(3));
+        assertArrayEquals(new int[0], graph.getFriends(42));
+        assertTrue(graph.hasEdge(1, 9));
+        assertFalse(graph.hasEdge(9, 1));
+    }
+
+    @Test
+    @DisplayName("Повторная загрузка не выполняется")
+    public void testEnsureLoadedRunsOnce() {
+        graph.ensureLoaded(() -> {
+            throw new AssertionError("Граф уже загружен");
+        });
+        assertArrayEquals(new int[]{2, 3, 5, 9}, graph.getFriends(1));
+    }
+
+    @Test
+    @DisplayName("Общие друзья — пересечение отсортированных списков")
+    public void testCommonFriends() {
+        assertArrayEquals(new int[]{3, 9}, graph.getCommonFriends(1, 2));
+        assertArrayEquals(new int[]{3, 9}, graph.getCommonFriends(2, 1));
+        assertArrayEquals(new int[0], graph.getCommonFriends(1, 3));
+        assertArrayEquals(new int[0], graph.getCommonFriends(1, 42));
+        assertArrayEquals(new int[]{2, 3, 5, 9}, graph.getCommonFriends(1, 1));
+    }
+
+    @Test
+    @DisplayName("Добавление связи сохраняет порядок и не дублирует друзей")
+    public void testAddEdge() {
+        graph.addEdge(1, 4);
+        graph.addEdge(1, 10);
+        graph.addEdge(1, 4);
+        assertArrayEquals(new int[]{2, 3, 4, 5, 9, 10}, graph.getFriends(1));
+
+        graph.addEdge(42, 7);
+        assertArrayEquals(new int[]{7}, graph.getFriends(42));
+        assertArrayEquals(new int[]{3, 9}, graph.getCommonFriends(1, 2));
+    }
+
+    @Test
+    @DisplayName("Удаление связи убирает друга из общих")
+    public void testRemoveEdge() {
+        graph.removeEdge(1, 3);
+        graph.removeEdge(1, 100);
+        graph.removeEdge(42, 1);
+        assertArrayEquals(new int[]{2, 5, 9}, graph.getFriends(1));
+        assertArrayEquals(new int[]{9}, graph.getCommonFriends(1, 2));
+        assertArrayEquals(new int[0], graph.getFriends(42));
+    }
+
+    @Test
+    @DisplayName("Удаление пользователя убирает его из всех списков")
+    public void testRemoveUser() {
+        graph.removeUser(9);
+        graph.removeUser(2);
+        assertArrayEquals(new int[]{3, 5}, graph.getFriends(1));
+        assertArrayEquals(new int[0], graph.getFriends(2));
+        assertArrayEquals(new int[0], graph.getCommonFriends(1, 2));
+    }
+
+    @Test
+    @DisplayName("Версия меняется только при фактическом изменении списка")
+    public void testVersions() {
+        long version = graph.getVersion(1);
+        long clock = graph.currentVersion();
+        assertTrue(version > 0);
+        assertEquals(0, graph.getVersion(42));
+
+        graph.addEdge(1, 2);
+        graph.removeEdge(1, 100);
+        assertEquals(version, graph.getVersion(1));
+        assertEquals(clock, graph.currentVersion());
+
+        graph.addEdge(1, 4);
+        assertTrue(graph.getVersion(1) > clock);
+        long added = graph.getVersion(1);
+        graph.removeEdge(1, 4);
+        assertTrue(graph.getVersion(1) > added);
+        assertEquals(graph.currentVersion(), graph.getVersion(1));
+        assertEquals(version, graph.getVersion(2), "Списки других пользователей не затронуты");
+    }
+}
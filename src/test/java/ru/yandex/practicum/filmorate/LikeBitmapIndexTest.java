@@ -0,0 +1,39 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.storage.memory.LikeBitmapIndex;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+public class LikeBitmapIndexTest {
+
+    @Test
+    @DisplayName("Рекомендации учитывают только ближайших соседей")
+    public void testRecommendUsesClosestNeighbours() {
+        LikeBitmapIndex index = new LikeBitmapIndex();
+        index.ensureLoaded(sink -> {
+            sink.accept(1, 1);
+            sink.accept(2, 1);
+            // Двадцать соседей с двумя общими лайками
+            for (int userId = 2; userId <= 21; userId++) {
+                sink.accept(1, userId);
+                sink.accept(2, userId);
+                sink.accept(100, userId);
+            }
+            // Соседи с одним общим лайком в число двадцати лучших не попадают
+            for (int userId = 22; userId <= 60; userId++) {
+                sink.accept(1, userId);
+                sink.accept(200, userId);
+            }
+        });
+
+        assertArrayEquals(new int[]{100}, index.recommend(1, 10));
+
+        index.removeLike(100, 21);
+        index.addLike(300, 21);
+        assertArrayEquals(new int[]{100, 300}, index.recommend(1, 10));
+        assertArrayEquals(new int[]{100}, index.recommend(1, 1));
+        assertArrayEquals(new int[0], index.recommend(999, 10));
+    }
+}
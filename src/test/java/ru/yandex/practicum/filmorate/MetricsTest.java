@@ -0,0 +1,76 @@
+package ru.yandex.practicum.filmorate;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.metrics.MethodMetricsAspect;
+import ru.yandex.practicum.filmorate.metrics.SqlStatementMetricsFilter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:metrics;DB_CLOSE_DELAY=-1")
+@AutoConfigureMockMvc
+public class MetricsTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private MeterRegistry registry;
+
+    @Test
+    @DisplayName("Число SQL-запросов записывается по шаблону адреса")
+    public void testSqlStatementsPerRequest() throws Exception {
+        mockMvc.perform(get("/users")).andExpect(status().isOk());
+        mockMvc.perform(get("/users")).andExpect(status().isOk());
+
+        DistributionSummary list = statements("GET", "/users");
+        assertEquals(2, list.count());
+        assertEquals(2, list.totalAmount(), "Список пользователей читается одним запросом");
+
+        mockMvc.perform(post("/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"user@example.com\",\"login\":\"user\",\"name\":\"User\","
+                                + "\"birthday\":\"1990-01-01\"}"))
+                .andExpect(status().is2xxSuccessful());
+        DistributionSummary create = statements("POST", "/users");
+        assertEquals(1, create.count());
+        assertEquals(2, create.totalAmount(), "Пользователь и запись журнала изменений добавляются двумя запросами");
+    }
+
+    @Test
+    @DisplayName("Исключения учитываются в таймере метода с тегом исключения")
+    public void testExceptionTimer() throws Exception {
+        mockMvc.perform(get("/users/999")).andExpect(status().isNotFound());
+        mockMvc.perform(get("/users/999")).andExpect(status().isNotFound());
+
+        Timer failures = registry.find(MethodMetricsAspect.METRIC_NAME)
+                .tags("layer", "service", "method", "getUserById", "exception", "NotFoundException")
+                .timer();
+        assertNotNull(failures);
+        assertEquals(2, failures.count());
+        Timer success = registry.find(MethodMetricsAspect.METRIC_NAME)
+                .tags("layer", "storage", "method", "getUsersByIds", "exception", "none")
+                .timer();
+        assertNotNull(success);
+        assertEquals(2, success.count());
+    }
+
+    private DistributionSummary statements(String method, String uri) {
+        DistributionSummary summary = registry.find(SqlStatementMetricsFilter.METRIC_NAME)
+                .tags("method", method, "uri", uri)
+                .summary();
+        assertNotNull(summary, "Нет метрики для " + method + " " + uri);
+        return summary;
+    }
+}
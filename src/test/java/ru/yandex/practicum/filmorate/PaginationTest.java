@@ -0,0 +1,39 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:pagination;DB_CLOSE_DELAY=-1")
+@AutoConfigureMockMvc
+@DirtiesContext
+public class PaginationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    @DisplayName("Параметры списка выбирают обработчик, неверные сочетания дают 400")
+    public void testParameterCombinations() throws Exception {
+        for (String uri : new String[]{"/films", "/users"}) {
+            mockMvc.perform(get(uri)).andExpect(status().isOk()).andExpect(jsonPath("$").isArray());
+            mockMvc.perform(get(uri).param("limit", "10")).andExpect(status().isOk())
+                    .andExpect(jsonPath("$.items").isArray());
+            mockMvc.perform(get(uri).param("after", "0").param("limit", "10")).andExpect(status().isOk());
+            mockMvc.perform(get(uri).param("ids", "1,2")).andExpect(status().isOk())
+                    .andExpect(jsonPath("$").isArray());
+
+            mockMvc.perform(get(uri).param("after", "100")).andExpect(status().isBadRequest());
+            mockMvc.perform(get(uri).param("ids", "1").param("limit", "10")).andExpect(status().isBadRequest());
+            mockMvc.perform(get(uri).param("ids", "1").param("after", "0")).andExpect(status().isBadRequest());
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.yandex.practicum.filmorate.dao.ReferenceDataRegistry;
+import ru.yandex.practicum.filmorate.storage.Change;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@JdbcTest
+@Import(ReferenceDataRegistry.class)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+public class ReferenceDataRegistryTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ReferenceDataRegistry referenceData;
+
+    @Test
+    @DisplayName("Справочники загружаются из миграций")
+    public void testLoadedFromDatabase() {
+        assertEquals(6, referenceData.getAllGenres().size());
+        assertEquals(5, referenceData.getAllMpa().size());
+        assertEquals("Комедия", referenceData.getGenre(1).orElseThrow().getName());
+        assertEquals("NC-17", referenceData.getMpa(5).orElseThrow().getName());
+    }
+
+    @Test
+    @DisplayName("Неизвестные, отрицательные и пустые id не находятся")
+    public void testUnknownIds() {
+        assertTrue(referenceData.getGenre(null).isEmpty());
+        assertTrue(referenceData.getGenre(-1).isEmpty());
+        assertTrue(referenceData.getGenre(0).isEmpty());
+        assertTrue(referenceData.getGenre(7).isEmpty());
+        assertTrue(referenceData.getGenre(Integer.MAX_VALUE).isEmpty());
+        assertTrue(referenceData.getMpa(null).isEmpty());
+        assertTrue(referenceData.getMpa(-1).isEmpty());
+        assertTrue(referenceData.getMpa(6).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Проверка отсутствующих жанров возвращает каждый id один раз")
+    public void testFindMissingGenres() {
+        assertEquals(List.of(), referenceData.findMissingGenres(List.of(1, 2, 6)));
+        assertEquals(List.of(99, -5), referenceData.findMissingGenres(List.of(1, 99, 99, -5)));
+        assertEquals(List.of(0), referenceData.findMissingGenres(Arrays.asList(0, 3)));
+    }
+
+    @Test
+    @DisplayName("Перезагрузка подхватывает новые записи и вызывает слушателей")
+    public void testReload() {
+        AtomicInteger reloads = new AtomicInteger();
+        referenceData.addReloadListener(reloads::incrementAndGet);
+        jdbcTemplate.update("INSERT INTO genres (genre_id, name) VALUES (20, 'Вестерн')");
+        assertTrue(referenceData.getGenre(20).isEmpty(), "До перезагрузки используется старый снимок");
+
+        referenceData.reload();
+
+        assertEquals("Вестерн", referenceData.getGenre(20).orElseThrow().getName());
+        assertTrue(referenceData.getGenre(15).isEmpty());
+        assertEquals(List.of(15), referenceData.findMissingGenres(List.of(15, 20)));
+        assertEquals(1, reloads.get());
+    }
+
+    @Test
+    @DisplayName("Перезагрузка на другом экземпляре приводит к перезагрузке здесь")
+    public void testReloadOnForeignChange() {
+        AtomicInteger reloads = new AtomicInteger();
+        referenceData.addReloadListener(reloads::incrementAndGet);
+        jdbcTemplate.update("INSERT INTO MPA (rating_mpa_id, name) VALUES (6, 'NR')");
+
+        referenceData.onChanges(List.of(new Change(1, "other", Change.Kind.FILM_UPDATED, 1, null)));
+        assertEquals(0, reloads.get());
+        assertTrue(referenceData.getMpa(6).isEmpty());
+
+        referenceData.onChanges(List.of(new Change(2, "other", Change.Kind.REFERENCE_RELOADED, 0, null)));
+        assertEquals(1, reloads.get());
+        assertEquals("NR", referenceData.getMpa(6).orElseThrow().getName());
+    }
+}
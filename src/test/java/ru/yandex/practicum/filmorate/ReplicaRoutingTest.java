@@ -0,0 +1,121 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.routing.ReplicaLagMonitor;
+import ru.yandex.practicum.filmorate.routing.ReplicaRouting;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Две базы H2 в памяти вместо основной базы и реплики. Репликация имитируется копированием
+ * основной базы в реплику, после чего названия фильмов в реплике меняются, чтобы было видно, откуда идёт чтение.
+ */
+public class ReplicaRoutingTest {
+    private ConfigurableApplicationContext context;
+    private JdbcTemplate primary;
+    private JdbcTemplate replica;
+    private FilmStorage filmStorage;
+    private ReplicaLagMonitor lagMonitor;
+
+    @BeforeEach
+    public void setUp() {
+        String primaryUrl = "jdbc:h2:mem:primary-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+        String replicaUrl = "jdbc:h2:mem:replica-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+        // Аргументы командной строки, в отличие от properties(), важнее application.properties
+        context = new SpringApplicationBuilder(FilmorateApplication.class)
+                .run("--spring.main.web-application-type=none",
+                        "--spring.datasource.url=" + primaryUrl,
+                        "--filmorate.datasource.replica.enabled=true",
+                        "--filmorate.datasource.replica.url=" + replicaUrl,
+                        // Проверка отставания вызывается из теста
+                        "--filmorate.datasource.replica.lag-check-interval-ms=3600000");
+        primary = new JdbcTemplate(new DriverManagerDataSource(primaryUrl, "sa", "password"));
+        replica = new JdbcTemplate(new DriverManagerDataSource(replicaUrl, "sa", "password"));
+        filmStorage = context.getBean(FilmStorage.class);
+        lagMonitor = context.getBean(ReplicaLagMonitor.class);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        context.close();
+    }
+
+    @Test
+    @DisplayName("Список фильмов читается с реплики, пока она не отстаёт")
+    public void testReadsGoToReplicaUntilItLags() {
+        filmStorage.addFilm(film("Первый"));
+        replicate();
+        lagMonitor.check();
+        assertEquals(List.of("Первый (реплика)"), names());
+
+        filmStorage.addFilm(film("Второй"));
+        lagMonitor.check();
+        assertEquals(List.of("Первый", "Второй"), names(), "Отстающая реплика не должна использоваться");
+    }
+
+    @Test
+    @DisplayName("В окне read-your-writes чтение идёт из основной базы")
+    public void testPinnedReadsGoToPrimary() {
+        filmStorage.addFilm(film("Первый"));
+        replicate();
+        lagMonitor.check();
+
+        ReplicaRouting routing = context.getBean(ReplicaRouting.class);
+        ReplicaRouting.Route previous = routing.enter(ReplicaRouting.Route.PRIMARY);
+        try {
+            assertEquals(List.of("Первый"), names());
+        } finally {
+            routing.exit(previous);
+        }
+        assertEquals(List.of("Первый (реплика)"), names());
+    }
+
+    @Test
+    @DisplayName("Фильмы, прочитанные с реплики, не попадают в кэш")
+    public void testReplicaReadsDoNotPopulateCache() {
+        Film film = filmStorage.addFilm(film("Первый"));
+        replicate();
+        lagMonitor.check();
+
+        assertEquals("Первый (реплика)", filmStorage.getTopFilms(1).get(0).getName());
+        // Чтение по id идёт через кэш из основной базы и не видит строку реплики
+        assertEquals("Первый", filmStorage.getFilmById(film.getId()).orElseThrow().getName());
+        assertEquals("Первый", filmStorage.getTopFilms(1).get(0).getName(),
+                "Попадания в кэш отдаются и при чтении с реплики");
+    }
+
+    private List<String> names() {
+        return filmStorage.getAllFilms().stream().map(Film::getName).toList();
+    }
+
+    private void replicate() {
+        List<String> script = primary.queryForList("SCRIPT", String.class);
+        replica.execute("DROP ALL OBJECTS");
+        script.forEach(replica::execute);
+        replica.update("UPDATE films SET name = name || ' (реплика)'");
+    }
+
+    private static Film film(String name) {
+        Film film = new Film();
+        film.setName(name);
+        film.setDescription("Описание");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(100);
+        film.setMpa(new Mpa(1, "G"));
+        return film;
+    }
+}
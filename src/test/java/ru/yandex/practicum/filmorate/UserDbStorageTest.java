@@ -1,15 +1,20 @@
 package ru.yandex.practicum.filmorate;
 
 import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.UserStorage;
+import ru.yandex.practicum.filmorate.dao.ChangeLog;
 import ru.yandex.practicum.filmorate.dao.UserDbStorage;
 
 import java.time.LocalDate;
@@ -18,9 +23,12 @@ import java.util.List;
 import java.util.NoSuchElementException;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @JdbcTest
+@Import({UserDbStorage.class, ChangeLog.class, SimpleMeterRegistry.class})
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
 @DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
 public class UserDbStorageTest {
@@ -29,13 +37,12 @@ public class UserDbStorageTest {
 
     @Autowired
     private JdbcTemplate jdbcTemplate;
+    @Autowired
     private UserStorage userStorage;
     private User user1, user2;
 
     @BeforeEach
     public void init() {
-        userStorage = new UserDbStorage(jdbcTemplate);
-
         user1 = new User();
         user1.setId(TEST_USER_ID);
         user1.setEmail("user1@example.com");
@@ -96,6 +103,7 @@ public class UserDbStorageTest {
     }
 
     @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     @DisplayName("Проверка добавления друга")
     public void check_addFriend_shouldAddFriend() {
         userStorage.addUser(user1);
@@ -109,6 +117,7 @@ public class UserDbStorageTest {
     }
 
     @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     @DisplayName("Проверка удаления друга")
     public void check_removeFriend_shouldRemoveFriend() {
         userStorage.addUser(user1);
@@ -122,6 +131,49 @@ public class UserDbStorageTest {
     }
 
     @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DisplayName("Удаление друга убирает его из общих друзей")
+    public void check_removeFriend_shouldUpdateCommonFriends() {
+        User user3 = new User(3, "user3@example.com", "user3login", "User Three", LocalDate.of(1980, 5, 20));
+        userStorage.addUser(user1);
+        userStorage.addUser(user2);
+        userStorage.addUser(user3);
+        userStorage.addFriend(user1.getId(), user3.getId());
+        userStorage.addFriend(user2.getId(), user3.getId());
+        userStorage.addFriend(user3.getId(), user1.getId());
+        assertEquals(List.of(user3), List.copyOf(userStorage.getCommonFriends(user1.getId(), user2.getId())));
+
+        userStorage.removeFriend(user1.getId(), user3.getId());
+
+        assertFalse(userStorage.hasFriend(user1.getId(), user3.getId()));
+        assertFalse(userStorage.hasFriend(user3.getId(), user1.getId()), "Обратная связь тоже удаляется");
+        assertTrue(userStorage.hasFriend(user2.getId(), user3.getId()));
+        assertEquals(List.of(), List.copyOf(userStorage.getCommonFriends(user1.getId(), user2.getId())));
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DisplayName("Удалённый пользователь пропадает из списков друзей")
+    public void check_deleteUser_shouldRemoveFromFriendLists() {
+        User user3 = new User(3, "user3@example.com", "user3login", "User Three", LocalDate.of(1980, 5, 20));
+        userStorage.addUser(user1);
+        userStorage.addUser(user2);
+        userStorage.addUser(user3);
+        userStorage.addFriend(user1.getId(), user2.getId());
+        userStorage.addFriend(user1.getId(), user3.getId());
+        userStorage.addFriend(user2.getId(), user3.getId());
+        userStorage.addFriend(user3.getId(), user1.getId());
+
+        userStorage.deleteUser(user3.getId());
+
+        assertEquals(List.of(user2), List.copyOf(userStorage.getUserFriends(user1.getId())));
+        assertEquals(List.of(), List.copyOf(userStorage.getUserFriends(user3.getId())));
+        assertEquals(List.of(), List.copyOf(userStorage.getCommonFriends(user1.getId(), user2.getId())));
+        assertFalse(userStorage.hasFriend(user2.getId(), user3.getId()));
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     @DisplayName("Проверка получения друзей пользователя")
     public void check_getUserFriends_shouldReturnFriends() {
         userStorage.addUser(user1);
@@ -135,6 +187,7 @@ public class UserDbStorageTest {
     }
 
     @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     @DisplayName("Проверка получения общих друзей")
     public void check_getCommonFriends_shouldReturnCommonFriends() {
         User user3 = new User();
@@ -157,4 +210,44 @@ public class UserDbStorageTest {
         assertEquals(user3, commonFriends.iterator().next());
     }
 
+    @Test
+    @DisplayName("Проверка постраничного получения пользователей")
+    public void check_getUsersPage_shouldReturnUsersAfterCursor() {
+        userStorage.addUser(user1);
+        userStorage.addUser(user2);
+
+        assertEquals(List.of(user1), userStorage.getUsersPage(0, 1));
+        assertEquals(List.of(user2), userStorage.getUsersPage(user1.getId(), 10));
+        assertEquals(List.of(), userStorage.getUsersPage(user2.getId(), 10));
+    }
+
+    @Test
+    @DisplayName("Проверка получения пользователей по списку ID")
+    public void check_getUsersByIds_shouldReturnUsersInRequestedOrder() {
+        userStorage.addUser(user1);
+        userStorage.addUser(user2);
+
+        assertEquals(List.of(user2, user1), userStorage.getUsersByIds(List.of(user2.getId(), 999, user1.getId())));
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DisplayName("Проверка рекомендаций друзей по числу общих друзей")
+    public void check_getFriendSuggestions_shouldRankByMutualFriends() {
+        User user3 = new User(3, "user3@example.com", "user3login", "User Three", LocalDate.of(1980, 5, 20));
+        User user4 = new User(4, "user4@example.com", "user4login", "User Four", LocalDate.of(1981, 5, 20));
+        userStorage.addUser(user1);
+        userStorage.addUser(user2);
+        userStorage.addUser(user3);
+        userStorage.addUser(user4);
+
+        userStorage.addFriend(user1.getId(), user2.getId());
+        userStorage.addFriend(user1.getId(), user3.getId());
+        userStorage.addFriend(user2.getId(), user4.getId());
+        userStorage.addFriend(user3.getId(), user4.getId());
+        assertEquals(List.of(user4), userStorage.getFriendSuggestions(user1.getId(), 10));
+
+        userStorage.addFriend(user1.getId(), user4.getId());
+        assertEquals(List.of(), userStorage.getFriendSuggestions(user1.getId(), 10));
+    }
 }
@@ -0,0 +1,105 @@
+package ru.yandex.practicum.filmorate.dao;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Проверяет, что запросы хранилищ обслуживаются нужными индексами. План строится для тех же
+ * SQL-констант, что выполняют хранилища, с параметрами, как в реальном запросе.
+ */
+@JdbcTest
+public class QueryPlanTest {
+    private static final String PRIMARY_KEY = "PRIMARY_KEY_";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Миграция V3 создаёт индексы обратных поисков на нужных колонках")
+    public void testIndexesCreatedByMigrations() {
+        Map<String, String> columns = new HashMap<>();
+        jdbcTemplate.query("SELECT index_name, table_name, column_name FROM information_schema.index_columns", rs -> {
+            columns.merge(rs.getString("index_name").toLowerCase(),
+                    (rs.getString("table_name") + "." + rs.getString("column_name")).toLowerCase(),
+                    (first, second) -> first + "," + second);
+        });
+        assertEquals("film_likes.film_id", columns.get("film_likes_film_id_idx"));
+        assertEquals("friends.friend_id", columns.get("friends_friend_id_idx"));
+        assertEquals("film_genre.genre_id", columns.get("film_genre_genre_id_idx"));
+        assertEquals("films.mpa_id", columns.get("films_mpa_id_idx"));
+    }
+
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    @DisplayName("Обратные поиски используют индексы V3")
+    public void testReverseLookupsUseMigrationIndexes() {
+        // H2 сам индексирует колонки внешних ключей, и план выбирает этот индекс вместо V3.
+        // В PostgreSQL внешний ключ индекса не создаёт, поэтому здесь ключи удаляются вместе с их индексами
+        dropForeignKey("film_likes", "film_id");
+        dropForeignKey("friends", "friend_id");
+        dropForeignKey("film_genre", "genre_id");
+        dropForeignKey("films", "mpa_id");
+
+        assertUsesIndex("FILM_LIKES_FILM_ID_IDX", FilmDbStorage.SQL_REPAIR_LIKE_COUNTS);
+        // Каскадное удаление входящих заявок при удалении пользователя
+        assertUsesIndex("FRIENDS_FRIEND_ID_IDX", "DELETE FROM friends WHERE friend_id = ?", 1);
+        // Проверка ссылок при удалении жанра и рейтинга из справочника
+        assertUsesIndex("FILM_GENRE_GENRE_ID_IDX", "SELECT 1 FROM film_genre WHERE genre_id = ?", 1);
+        assertUsesIndex("FILMS_MPA_ID_IDX", "SELECT 1 FROM films WHERE mpa_id = ?", 1);
+    }
+
+    @Test
+    @DisplayName("Запросы фильмов используют первичные ключи")
+    public void testFilmQueriesUsePrimaryKeys() {
+        assertUsesIndex(PRIMARY_KEY, FilmGraphLoader.SQL_FILMS + " WHERE f.film_id IN (?, ?, ?)", 1, 2, 3);
+        assertUsesIndex(PRIMARY_KEY, FilmGraphLoader.SQL_FILMS_PAGE, 100, 50);
+        assertUsesIndex(PRIMARY_KEY, FilmGraphLoader.SQL_GENRES + " WHERE fg.film_id IN (?, ?, ?) "
+                + "ORDER BY fg.genre_id", 1, 2, 3);
+        assertUsesIndex(PRIMARY_KEY, FilmDbStorage.SQL_INSERT_LIKE_IF_ABSENT, 1, 2, 1, 2);
+        // Для удаления пары H2 берёт индекс внешнего ключа по user_id — начало первичного ключа
+        assertIndexLookup(": USER_ID = ?1", FilmDbStorage.SQL_DELETE_LIKE, 1, 2);
+        assertUsesIndex(PRIMARY_KEY, FilmDbStorage.SQL_ADJUST_LIKES_COUNT, 1, 2);
+    }
+
+    @Test
+    @DisplayName("Запросы пользователей используют первичные ключи")
+    public void testUserQueriesUsePrimaryKeys() {
+        assertUsesIndex(PRIMARY_KEY, UserDbStorage.SQL_GET_USER, 1);
+        assertUsesIndex(PRIMARY_KEY, UserDbStorage.SQL_GET_USERS_PAGE, 100, 50);
+        assertUsesIndex(PRIMARY_KEY, UserDbStorage.SQL_UPDATE_USER,
+                "name", "user@example.com", "login", LocalDate.of(1990, 1, 1), 1);
+        assertUsesIndex(PRIMARY_KEY, UserDbStorage.SQL_DELETE_USER, 1);
+        assertIndexLookup(": USER_ID = ?1", UserDbStorage.SQL_DELETE_FRIEND, 1, 2);
+    }
+
+    private void assertUsesIndex(String index, String sql, Object... args) {
+        assertIndexLookup("PUBLIC." + index, sql, args);
+    }
+
+    private void assertIndexLookup(String expected, String sql, Object... args) {
+        String plan = String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class, args));
+        assertFalse(plan.contains("tableScan"), () -> "Полный просмотр таблицы в плане запроса:\n" + plan);
+        assertTrue(plan.contains(expected), () -> "В плане нет " + expected + ":\n" + plan);
+    }
+
+    private void dropForeignKey(String table, String column) {
+        List<String> constraints = jdbcTemplate.queryForList("SELECT tc.constraint_name "
+                + "FROM information_schema.table_constraints tc "
+                + "JOIN information_schema.key_column_usage kcu ON kcu.constraint_name = tc.constraint_name "
+                + "WHERE tc.constraint_type = 'FOREIGN KEY' AND LOWER(tc.table_name) = ? "
+                + "AND LOWER(kcu.column_name) = ?", String.class, table, column);
+        assertEquals(1, constraints.size(), () -> "Внешний ключ " + table + "." + column + ": " + constraints);
+        jdbcTemplate.execute("ALTER TABLE " + table + " DROP CONSTRAINT \"" + constraints.get(0) + "\"");
+    }
+}
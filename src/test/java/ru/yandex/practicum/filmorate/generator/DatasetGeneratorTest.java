@@ -0,0 +1,111 @@
+package ru.yandex.practicum.filmorate.generator;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.dao.ChangeLog;
+import ru.yandex.practicum.filmorate.dao.FilmDbStorage;
+import ru.yandex.practicum.filmorate.dao.ReferenceDataRegistry;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Генератор пишет через собственные соединения с фиксацией, поэтому тесты идут без транзакции теста.
+ */
+@JdbcTest
+@Import({FilmDbStorage.class, ReferenceDataRegistry.class, ChangeLog.class, SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+public class DatasetGeneratorTest {
+    // Больше USERS_PER_TASK, чтобы лайки и друзья писались несколькими задачами
+    private static final int USERS = 25_000;
+    private static final int FILMS = 500;
+
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ReferenceDataRegistry referenceData;
+    @Autowired
+    private FilmStorage filmStorage;
+
+    @AfterEach
+    public void tearDown() {
+        clear();
+    }
+
+    @Test
+    @DisplayName("Одинаковое зерно даёт одинаковую базу при любом числе потоков")
+    public void testSameSeedSameDataset() throws Exception {
+        generator(42, 1).run(null);
+        Map<String, List<String>> first = snapshot();
+        assertEquals(USERS, first.get("users").size());
+        assertEquals(FILMS, first.get("films").size());
+        assertFalse(first.get("film_likes").isEmpty());
+        assertFalse(first.get("friends").isEmpty());
+
+        clear();
+        generator(42, 4).run(null);
+        assertEquals(first, snapshot());
+    }
+
+    @Test
+    @DisplayName("Другое зерно даёт другие связи")
+    public void testDifferentSeedDifferentLinks() throws Exception {
+        generator(42, 2).run(null);
+        Map<String, List<String>> first = snapshot();
+
+        clear();
+        generator(43, 2).run(null);
+        Map<String, List<String>> second = snapshot();
+        assertNotEquals(first.get("film_likes"), second.get("film_likes"));
+        assertNotEquals(first.get("friends"), second.get("friends"));
+    }
+
+    @Test
+    @DisplayName("Генерация в непустую базу отклоняется")
+    public void testRequiresEmptyTables() throws Exception {
+        generator(42, 2).run(null);
+        assertThrows(IllegalStateException.class, () -> generator(42, 2).run(null));
+    }
+
+    private DatasetGenerator generator(long seed, int threads) {
+        return new DatasetGenerator(dataSource, jdbcTemplate, referenceData, filmStorage,
+                USERS, FILMS, 40_000, 20_000, 1.05, 0.6, 0.9, seed, threads);
+    }
+
+    private Map<String, List<String>> snapshot() {
+        return Map.of(
+                "films", jdbcTemplate.queryForList("SELECT CONCAT_WS('|', film_id, release_date, duration, mpa_id, "
+                        + "likes_count) FROM films ORDER BY film_id", String.class),
+                "film_genre", rows("SELECT film_id, genre_id FROM film_genre ORDER BY film_id, genre_id"),
+                "users", jdbcTemplate.queryForList("SELECT CONCAT_WS('|', user_id, birthday) FROM users "
+                        + "ORDER BY user_id", String.class),
+                "film_likes", rows("SELECT user_id, film_id FROM film_likes ORDER BY user_id, film_id"),
+                "friends", rows("SELECT user_id, friend_id FROM friends ORDER BY user_id, friend_id"));
+    }
+
+    private List<String> rows(String sql) {
+        return jdbcTemplate.query(sql, (rs, rowNum) -> rs.getInt(1) + "|" + rs.getInt(2));
+    }
+
+    private void clear() {
+        for (String table : List.of("film_likes", "friends", "film_genre", "films", "users")) {
+            jdbcTemplate.update("DELETE FROM " + table);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package ru.yandex.practicum.filmorate.generator;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ZipfSamplerTest {
+    private static final int SAMPLES = 200_000;
+
+    @Test
+    @DisplayName("Выборка не выходит за границы 1..n")
+    public void testBounds() {
+        RandomGenerator random = new SplittableRandom(1);
+        ZipfSampler single = new ZipfSampler(1, 1.0);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(1, single.sample(random));
+        }
+        for (double exponent : new double[]{0.3, 1.0, 2.5}) {
+            ZipfSampler sampler = new ZipfSampler(7, exponent);
+            boolean[] seen = new boolean[8];
+            for (int i = 0; i < SAMPLES; i++) {
+                int value = sampler.sample(random);
+                assertTrue(value >= 1 && value <= 7, "Значение вне диапазона: " + value);
+                seen[value] = true;
+            }
+            for (int k = 1; k <= 7; k++) {
+                assertTrue(seen[k], "Ранг " + k + " не выпал при exponent=" + exponent);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Частоты рангов пропорциональны 1 / k^exponent")
+    public void testDistribution() {
+        for (double exponent : new double[]{0.6, 1.0, 1.5}) {
+            int n = 10;
+            ZipfSampler sampler = new ZipfSampler(n, exponent);
+            RandomGenerator random = new SplittableRandom(42);
+            int[] counts = new int[n + 1];
+            for (int i = 0; i < SAMPLES; i++) {
+                counts[sampler.sample(random)]++;
+            }
+            double norm = 0;
+            for (int k = 1; k <= n; k++) {
+                norm += Math.pow(k, -exponent);
+            }
+            for (int k = 1; k <= n; k++) {
+                double expected = Math.pow(k, -exponent) / norm;
+                assertEquals(expected, counts[k] / (double) SAMPLES, 0.005,
+                        "Частота ранга " + k + " при exponent=" + exponent);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Одинаковое зерно даёт одинаковую последовательность")
+    public void testDeterminism() {
+        ZipfSampler sampler = new ZipfSampler(100_000, 1.05);
+        RandomGenerator first = new SplittableRandom(7);
+        RandomGenerator second = new SplittableRandom(7);
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(sampler.sample(first), sampler.sample(second));
+        }
+    }
+
+    @Test
+    @DisplayName("Некорректные параметры отклоняются")
+    public void testInvalidParameters() {
+        assertThrows(IllegalArgumentException.class, () -> new ZipfSampler(0, 1.0));
+        assertThrows(IllegalArgumentException.class, () -> new ZipfSampler(10, 0));
+        assertThrows(IllegalArgumentException.class, () -> new ZipfSampler(10, -1));
+    }
+}
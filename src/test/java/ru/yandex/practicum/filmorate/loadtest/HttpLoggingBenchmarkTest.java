@@ -0,0 +1,99 @@
+package ru.yandex.practicum.filmorate.loadtest;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Стоимость журнала HTTP: без журнала, стандартный Logbook и выборочный асинхронный журнал.
+ * Запуск: mvn test -Pbenchmark. Для каждого режима печатаются пропускная способность, p99,
+ * процессорное время и объём выделенной памяти на запрос в потоках Tomcat и потоке записи журнала.
+ * Нагрузка — профиль {@link WorkloadProfile#MIXED} с фиксированным числом клиентов.
+ * Журнал пишется в target/http-log-benchmark-*.log, консоль отключена.
+ */
+@Tag("benchmark")
+public class HttpLoggingBenchmarkTest {
+    private static final int CLIENTS = 64;
+    private static final Duration WARMUP = Duration.ofSeconds(5);
+    private static final Duration MEASUREMENT = Duration.ofSeconds(15);
+    private static final long SEED = 42;
+
+    @Test
+    @DisplayName("Процессорное время и выделение памяти на запрос в разных режимах журнала")
+    public void compareLoggingModes() throws Exception {
+        List<Result> results = List.of(
+                run("off", "logbook.filter.enabled=false"),
+                run("full", "logging.level.org.zalando.logbook.Logbook=TRACE"),
+                run("sampled", "filmorate.http-log.mode=sampled"));
+
+        results.forEach(System.out::println);
+        results.forEach(result -> assertEquals(0, result.load().errors(), "Ошибки в режиме " + result.mode()));
+    }
+
+    private Result run(String mode, String loggingProperty) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(FilmorateApplication.class)
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:http-log-" + mode + ";DB_CLOSE_DELAY=-1",
+                        "--spring.flyway.locations=classpath:db/migration,classpath:db/benchmark",
+                        "--logging.pattern.console=",
+                        "--logging.file.name=target/http-log-benchmark-" + mode + ".log",
+                        "--logging.level.ru.yandex.practicum.filmorate=WARN",
+                        "--logging.level.ru.yandex.practicum.filmorate.logging=INFO",
+                        "--" + loggingProperty)) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            LoadGenerator generator = new LoadGenerator("http://localhost:" + port);
+            generator.runClients(WorkloadProfile.MIXED, CLIENTS, WARMUP, SEED + 1);
+
+            Map<Long, long[]> before = serverThreadCosts();
+            LoadReport.Stats load = generator.runClients(WorkloadProfile.MIXED, CLIENTS, MEASUREMENT, SEED).total();
+            Map<Long, long[]> after = serverThreadCosts();
+
+            long cpuNanos = 0;
+            long allocatedBytes = 0;
+            for (Map.Entry<Long, long[]> entry : after.entrySet()) {
+                long[] start = before.getOrDefault(entry.getKey(), new long[2]);
+                cpuNanos += entry.getValue()[0] - start[0];
+                allocatedBytes += entry.getValue()[1] - start[1];
+            }
+            return new Result(mode, load, cpuNanos / Math.max(1, load.requests()),
+                    allocatedBytes / Math.max(1, load.requests()));
+        }
+    }
+
+    /**
+     * Процессорное время и выделенная память потоков сервера (http-nio-*) и потока журнала.
+     */
+    private static Map<Long, long[]> serverThreadCosts() {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Map<Long, long[]> costs = new HashMap<>();
+        Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().startsWith("http-nio") || thread.getName().equals("http-log-writer"))
+                .forEach(thread -> costs.put(thread.threadId(), new long[]{
+                        threads.getThreadCpuTime(thread.threadId()),
+                        threads.getThreadAllocatedBytes(thread.threadId())}));
+        return costs;
+    }
+
+    private record Result(String mode, LoadReport.Stats load, long cpuNanosPerRequest, long allocatedBytesPerRequest) {
+
+        @Override
+        public String toString() {
+            return String.format("%-8s %10.1f req/s  p99 %7.2f ms  CPU %7.1f мкс/запрос  память %8.1f КБ/запрос",
+                    mode, load.throughput(), load.p99(), cpuNanosPerRequest / 1000.0,
+                    allocatedBytesPerRequest / 1024.0);
+        }
+    }
+}
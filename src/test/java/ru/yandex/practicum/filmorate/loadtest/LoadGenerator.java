@@ -0,0 +1,159 @@
+package ru.yandex.practicum.filmorate.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.LockSupport;
+import java.util.random.RandomGenerator;
+
+/**
+ * Генератор нагрузки с открытой моделью: запросы отправляются по расписанию с заданной частотой,
+ * независимо от того, ответил ли сервер на предыдущие. Задержка отсчитывается от запланированного
+ * времени отправки, поэтому очередь на стороне клиента тоже попадает в перцентили.
+ * Запросы сверх MAX_IN_FLIGHT не отправляются и считаются отдельно как отброшенные.
+ * Последовательность запросов определяется зерном генератора и повторяется между запусками.
+ * Для сравнения режимов сервера есть и замкнутая модель с фиксированным числом клиентов, см. {@link #runClients}.
+ */
+class LoadGenerator {
+    private static final int MAX_IN_FLIGHT = 10_000;
+
+    private final String baseUrl;
+    private final HttpClient client = HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    LoadGenerator(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    LoadReport run(WorkloadProfile profile, int ratePerSecond, Duration duration, long seed) {
+        RandomGenerator random = new SplittableRandom(seed);
+        long periodNanos = 1_000_000_000L / ratePerSecond;
+        long total = duration.toSeconds() * ratePerSecond;
+        Map<String, Samples> samples = samplesFor(profile);
+        Semaphore inFlight = new Semaphore(MAX_IN_FLIGHT);
+
+        long start = System.nanoTime();
+        try (ExecutorService requests = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long i = 0; i < total; i++) {
+                Operation operation = profile.next(random);
+                String path = operation.path().apply(random);
+                long intendedStart = start + i * periodNanos;
+                long delay = intendedStart - System.nanoTime();
+                if (delay > 0) {
+                    LockSupport.parkNanos(delay);
+                }
+
+                Samples operationSamples = samples.get(operation.name());
+                if (!inFlight.tryAcquire()) {
+                    // Сервер не успевает: запрос отбрасывается, чтобы не копить бесконечную очередь.
+                    // В задержки он не попадает, иначе почти нулевое время отказа занизило бы перцентили
+                    operationSamples.drop();
+                    continue;
+                }
+                requests.submit(() -> {
+                    try {
+                        operationSamples.record(System.nanoTime() - intendedStart, send(operation.method(), path));
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        return LoadReport.of(profile, ratePerSecond, seed, elapsed, samples);
+    }
+
+    /**
+     * Замкнутая модель: clients клиентов шлют запросы подряд, следующий — после ответа на предыдущий.
+     * Так режимы сервера сравниваются при одинаковой конкуренции; задержка отсчитывается от отправки.
+     * Каждый клиент получает свой генератор, отделённый от зерна, поэтому смесь запросов повторяется.
+     */
+    LoadReport runClients(WorkloadProfile profile, int clients, Duration duration, long seed) {
+        SplittableRandom seeds = new SplittableRandom(seed);
+        Map<String, Samples> samples = samplesFor(profile);
+
+        long start = System.nanoTime();
+        long deadline = start + duration.toNanos();
+        try (ExecutorService requests = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                RandomGenerator random = seeds.split();
+                requests.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        Operation operation = profile.next(random);
+                        String path = operation.path().apply(random);
+                        long sent = System.nanoTime();
+                        boolean success = send(operation.method(), path);
+                        samples.get(operation.name()).record(System.nanoTime() - sent, success);
+                    }
+                });
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        return LoadReport.of(profile, 0, seed, elapsed, samples);
+    }
+
+    private static Map<String, Samples> samplesFor(WorkloadProfile profile) {
+        Map<String, Samples> samples = new LinkedHashMap<>();
+        profile.operations().forEach(operation -> samples.put(operation.name(), new Samples()));
+        return samples;
+    }
+
+    private boolean send(String method, String path) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .method(method, HttpRequest.BodyPublishers.noBody())
+                .timeout(Duration.ofSeconds(30))
+                .build();
+        try {
+            int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            return status >= 200 && status < 400;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * Задержки и ошибки выполненных запросов одного вида и число отброшенных.
+     */
+    static final class Samples {
+        private long[] latencies = new long[4096];
+        private int count;
+        private long errors;
+        private long dropped;
+
+        synchronized void record(long latencyNanos, boolean success) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latencyNanos;
+            if (!success) {
+                errors++;
+            }
+        }
+
+        synchronized void drop() {
+            dropped++;
+        }
+
+        synchronized long[] sortedLatencies() {
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+
+        synchronized long errors() {
+            return errors;
+        }
+
+        synchronized long dropped() {
+            return dropped;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package ru.yandex.practicum.filmorate.loadtest;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+/**
+ * Результат прогона в виде, удобном для сравнения между сборками: сериализуется в JSON как есть.
+ * Задержки в миллисекундах. requests, задержки и throughput — только по выполненным запросам;
+ * ошибка — ответ не 2xx/3xx или сбой соединения. Отброшенные генератором запросы считаются в dropped
+ * и входят в errorRate вместе с ошибками. targetRate равен 0 у прогона с фиксированным числом клиентов.
+ */
+record LoadReport(String profile, int targetRate, long seed, double durationSeconds, Stats total,
+                  Map<String, Stats> operations) {
+
+    static LoadReport of(WorkloadProfile profile, int targetRate, long seed, long elapsedNanos,
+                         Map<String, LoadGenerator.Samples> samples) {
+        double seconds = elapsedNanos / 1e9;
+        Map<String, Stats> operations = new LinkedHashMap<>();
+        long[][] all = new long[samples.size()][];
+        long errors = 0;
+        long dropped = 0;
+        int i = 0;
+        for (Map.Entry<String, LoadGenerator.Samples> entry : samples.entrySet()) {
+            long[] sorted = entry.getValue().sortedLatencies();
+            operations.put(entry.getKey(),
+                    Stats.of(sorted, entry.getValue().errors(), entry.getValue().dropped(), seconds));
+            all[i++] = sorted;
+            errors += entry.getValue().errors();
+            dropped += entry.getValue().dropped();
+        }
+        long[] merged = Arrays.stream(all).flatMapToLong(LongStream::of).sorted().toArray();
+        return new LoadReport(profile.name(), targetRate, seed, seconds, Stats.of(merged, errors, dropped, seconds),
+                operations);
+    }
+
+    record Stats(long requests, long errors, long dropped, double errorRate, double throughput, double p50,
+                 double p99, double p999, double max) {
+
+        static Stats of(long[] sorted, long errors, long dropped, double seconds) {
+            long attempted = sorted.length + dropped;
+            return new Stats(sorted.length, errors, dropped, attempted == 0 ? 0 : (errors + dropped) / (double) attempted,
+                    sorted.length / seconds, percentile(sorted, 0.5), percentile(sorted, 0.99),
+                    percentile(sorted, 0.999), sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1e6);
+        }
+
+        private static double percentile(long[] sorted, double quantile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(quantile * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(sorted.length - 1, index))] / 1e6;
+        }
+    }
+}
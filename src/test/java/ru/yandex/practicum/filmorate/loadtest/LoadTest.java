@@ -0,0 +1,71 @@
+package ru.yandex.practicum.filmorate.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Нагрузочный прогон API на H2 в памяти. Запуск: mvn test -Pbenchmark -Dtest=LoadTest
+ * с параметрами -Dloadtest.profiles=BROWSING,PREMIERE_LIKE_STORM,SOCIAL_CHURN -Dloadtest.rate=1000
+ * -Dloadtest.duration=30s -Dloadtest.seed=42. Для каждого профиля приложение поднимается заново,
+ * отчёт пишется в target/loadtest/&lt;профиль&gt;.json.
+ */
+@Tag("benchmark")
+public class LoadTest {
+    private static final Path OUTPUT = Path.of("target", "loadtest");
+
+    @Test
+    @DisplayName("Нагрузочный прогон профилей")
+    public void runProfiles() throws IOException {
+        List<WorkloadProfile> profiles = Arrays.stream(System.getProperty("loadtest.profiles",
+                        "BROWSING,PREMIERE_LIKE_STORM,SOCIAL_CHURN").split(","))
+                .map(String::trim)
+                .map(WorkloadProfile::valueOf)
+                .toList();
+        int rate = Integer.getInteger("loadtest.rate", 1000);
+        Duration duration = Duration.parse("PT" + System.getProperty("loadtest.duration", "30s"));
+        long seed = Long.getLong("loadtest.seed", 42);
+        ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        Files.createDirectories(OUTPUT);
+
+        for (WorkloadProfile profile : profiles) {
+            try (ConfigurableApplicationContext context = start(profile)) {
+                int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+                LoadGenerator generator = new LoadGenerator("http://localhost:" + port);
+                // Прогрев JIT и кэшей, результат не сохраняется
+                generator.run(profile, rate, Duration.ofSeconds(5), seed + 1);
+                LoadReport report = generator.run(profile, rate, duration, seed);
+
+                Path file = OUTPUT.resolve(profile.name().toLowerCase() + ".json");
+                mapper.writeValue(file.toFile(), report);
+                System.out.println(mapper.writeValueAsString(report.total()));
+                assertTrue(report.total().requests() > 0, "Не отправлено ни одного запроса");
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext start(WorkloadProfile profile) {
+        // Аргументы, а не properties(): значения по умолчанию перекрываются application.properties
+        return new SpringApplicationBuilder(FilmorateApplication.class)
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:loadtest-" + profile.name() + ";DB_CLOSE_DELAY=-1",
+                        "--spring.flyway.locations=classpath:db/migration,classpath:db/benchmark",
+                        "--logbook.filter.enabled=false",
+                        "--logging.level.ru.yandex.practicum.filmorate=WARN");
+    }
+}
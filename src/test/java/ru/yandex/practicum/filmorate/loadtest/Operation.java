@@ -0,0 +1,10 @@
+package ru.yandex.practicum.filmorate.loadtest;
+
+import java.util.random.RandomGenerator;
+import java.util.function.Function;
+
+/**
+ * Один вид запроса в профиле нагрузки: HTTP-метод и генератор пути по источнику случайных чисел.
+ */
+record Operation(String name, String method, int weight, Function<RandomGenerator, String> path) {
+}
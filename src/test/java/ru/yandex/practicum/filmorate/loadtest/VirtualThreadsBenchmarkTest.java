@@ -0,0 +1,99 @@
+package ru.yandex.practicum.filmorate.loadtest;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Сравнение обработки запросов на пуле платформенных потоков Tomcat и на виртуальных потоках.
+ * Запуск: mvn test -Pbenchmark. Оба режима поднимают приложение на H2 в памяти с одинаковыми данными
+ * и нагружаются профилем {@link WorkloadProfile#BROWSING} с фиксированным числом клиентов. Для виртуальных
+ * потоков через JFR считаются события закрепления потока-носителя (jdk.VirtualThreadPinned)
+ * и печатаются места, где они случились.
+ */
+@Tag("benchmark")
+public class VirtualThreadsBenchmarkTest {
+    private static final int CLIENTS = 400;
+    private static final Duration WARMUP = Duration.ofSeconds(5);
+    private static final Duration MEASUREMENT = Duration.ofSeconds(15);
+    private static final long SEED = 42;
+
+    @Test
+    @DisplayName("Пропускная способность на платформенных и виртуальных потоках")
+    public void compareExecutionModes() throws Exception {
+        Result platform = run(false);
+        Result virtual = run(true);
+
+        System.out.println(platform);
+        System.out.println(virtual);
+        assertEquals(0, platform.load().errors(), "Ошибки в режиме платформенных потоков");
+        assertEquals(0, virtual.load().errors(), "Ошибки в режиме виртуальных потоков");
+    }
+
+    private Result run(boolean virtualThreads) throws Exception {
+        String mode = virtualThreads ? "virtual" : "platform";
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(FilmorateApplication.class)
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:benchmark-" + mode + ";DB_CLOSE_DELAY=-1",
+                        "--spring.flyway.locations=classpath:db/migration,classpath:db/benchmark",
+                        "--spring.datasource.hikari.maximum-pool-size=20",
+                        "--spring.threads.virtual.enabled=" + virtualThreads,
+                        "--filmorate.datasource.limiter.enabled=" + virtualThreads,
+                        "--logbook.filter.enabled=false",
+                        "--logging.level.ru.yandex.practicum.filmorate=WARN")) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            LoadGenerator generator = new LoadGenerator("http://localhost:" + port);
+            generator.runClients(WorkloadProfile.BROWSING, CLIENTS, WARMUP, SEED + 1);
+
+            Map<String, AtomicLong> pinnedFrames = new ConcurrentHashMap<>();
+            AtomicLong pinned = new AtomicLong();
+            try (RecordingStream recording = new RecordingStream()) {
+                recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ofMillis(5)).withStackTrace();
+                recording.onEvent("jdk.VirtualThreadPinned", event -> {
+                    pinned.incrementAndGet();
+                    pinnedFrames.computeIfAbsent(topApplicationFrame(event), frame -> new AtomicLong()).incrementAndGet();
+                });
+                recording.startAsync();
+                LoadReport.Stats load = generator.runClients(WorkloadProfile.BROWSING, CLIENTS, MEASUREMENT, SEED)
+                        .total();
+                return new Result(mode, load, pinned.get(), pinnedFrames);
+            }
+        }
+    }
+
+    private static String topApplicationFrame(RecordedEvent event) {
+        if (event.getStackTrace() == null) {
+            return "<нет стека>";
+        }
+        return event.getStackTrace().getFrames().stream()
+                .filter(RecordedFrame::isJavaFrame)
+                .map(frame -> frame.getMethod().getType().getName() + "." + frame.getMethod().getName())
+                .filter(name -> !name.startsWith("java.") && !name.startsWith("jdk."))
+                .findFirst()
+                .orElse("<нет кадров приложения>");
+    }
+
+    private record Result(String mode, LoadReport.Stats load, long pinnedEvents, Map<String, AtomicLong> pinnedFrames) {
+
+        @Override
+        public String toString() {
+            return String.format("%-8s %10.1f req/s  p50 %7.2f ms  p99 %7.2f ms  ошибок %d  закреплений %d %s",
+                    mode, load.throughput(), load.p50(), load.p99(), load.errors(), pinnedEvents,
+                    pinnedFrames);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package ru.yandex.practicum.filmorate.loadtest;
+
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * Смеси запросов для нагрузочного теста. Идентификаторы берутся из диапазонов db/benchmark/R__benchmark_data.sql.
+ */
+enum WorkloadProfile {
+    /**
+     * Просмотр каталога: почти только чтение.
+     */
+    BROWSING(List.of(
+            new Operation("popular", "GET", 40, random -> "/films/popular?count=10"),
+            new Operation("film", "GET", 30, random -> "/films/" + film(random)),
+            new Operation("films-page", "GET", 15, random -> "/films?limit=50&after=" + random.nextInt(Data.FILMS)),
+            new Operation("friends", "GET", 10, random -> "/users/" + user(random) + "/friends"),
+            new Operation("common-friends", "GET", 5,
+                    random -> "/users/" + user(random) + "/friends/common/" + user(random)))),
+
+    /**
+     * Премьера: лайки сыплются на несколько новых фильмов, все смотрят рейтинг.
+     */
+    PREMIERE_LIKE_STORM(List.of(
+            new Operation("like", "PUT", 70, random -> "/films/" + premiere(random) + "/like/" + user(random)),
+            new Operation("unlike", "DELETE", 10, random -> "/films/" + premiere(random) + "/like/" + user(random)),
+            new Operation("popular", "GET", 20, random -> "/films/popular?count=10"))),
+
+    /**
+     * Активная соцсеть: пользователи добавляют и удаляют друзей и смотрят общих.
+     */
+    SOCIAL_CHURN(List.of(
+            new Operation("add-friend", "PUT", 35, random -> "/users/" + user(random) + "/friends/" + user(random)),
+            new Operation("remove-friend", "DELETE", 15,
+                    random -> "/users/" + user(random) + "/friends/" + user(random)),
+            new Operation("friends", "GET", 30, random -> "/users/" + user(random) + "/friends"),
+            new Operation("common-friends", "GET", 20,
+                    random -> "/users/" + user(random) + "/friends/common/" + user(random)))),
+
+    /**
+     * Смешанная нагрузка на API: рейтинг, лайки, карточки фильмов и пользователей.
+     */
+    MIXED(List.of(
+            new Operation("popular", "GET", 2, random -> "/films/popular?count=10"),
+            new Operation("like", "PUT", 1, random -> "/films/" + film(random) + "/like/" + user(random)),
+            new Operation("unlike", "DELETE", 1, random -> "/films/" + film(random) + "/like/" + user(random)),
+            new Operation("film", "GET", 1, random -> "/films/" + film(random)),
+            new Operation("user", "GET", 1, random -> "/users/" + user(random))));
+
+    private final List<Operation> operations;
+    private final int totalWeight;
+
+    WorkloadProfile(List<Operation> operations) {
+        this.operations = operations;
+        this.totalWeight = operations.stream().mapToInt(Operation::weight).sum();
+    }
+
+    List<Operation> operations() {
+        return operations;
+    }
+
+    Operation next(RandomGenerator random) {
+        int point = random.nextInt(totalWeight);
+        for (Operation operation : operations) {
+            point -= operation.weight();
+            if (point < 0) {
+                return operation;
+            }
+        }
+        return operations.get(operations.size() - 1);
+    }
+
+    private static int film(RandomGenerator random) {
+        return random.nextInt(Data.FILMS) + 1;
+    }
+
+    private static int premiere(RandomGenerator random) {
+        return Data.FILMS - random.nextInt(Data.PREMIERES);
+    }
+
+    private static int user(RandomGenerator random) {
+        return random.nextInt(Data.USERS) + 1;
+    }
+
+    private static final class Data {
+        static final int USERS = 1000;
+        static final int FILMS = 2000;
+        static final int PREMIERES = 5;
+    }
+}
@@ -0,0 +1,58 @@
+package ru.yandex.practicum.filmorate.logging;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.zalando.logbook.Correlation;
+import org.zalando.logbook.HttpRequest;
+import org.zalando.logbook.HttpResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class AsyncHttpLogSinkTest {
+
+    @Test
+    @DisplayName("Тело обрезается по границе символа UTF-8")
+    public void testTruncateKeepsWholeCharacters() {
+        byte[] body = "Фильм".getBytes(StandardCharsets.UTF_8);
+
+        assertEquals("Фи", AsyncHttpLogSink.truncate(body, 5, StandardCharsets.UTF_8));
+        assertEquals("Фил", AsyncHttpLogSink.truncate(body, 6, StandardCharsets.UTF_8));
+        assertEquals("", AsyncHttpLogSink.truncate(body, 1, StandardCharsets.UTF_8));
+        byte[] emoji = "a🎬".getBytes(StandardCharsets.UTF_8);
+        assertEquals("a", AsyncHttpLogSink.truncate(emoji, 4, StandardCharsets.UTF_8));
+        assertEquals("ab", AsyncHttpLogSink.truncate("abc".getBytes(StandardCharsets.ISO_8859_1), 2,
+                StandardCharsets.ISO_8859_1));
+    }
+
+    @Test
+    @DisplayName("Записи сверх размера буфера отбрасываются и учитываются в метрике")
+    public void testDroppedCounter() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        AsyncHttpLogSink sink = new AsyncHttpLogSink(2, 1024, registry);
+        // После остановки поток записи буфер не читает, и он заполняется
+        sink.shutdown();
+
+        Correlation correlation = mock(Correlation.class);
+        when(correlation.getDuration()).thenReturn(Duration.ofMillis(3));
+        HttpRequest request = mock(HttpRequest.class);
+        when(request.getMethod()).thenReturn("GET");
+        when(request.getPath()).thenReturn("/films/1");
+        when(request.getQuery()).thenReturn("");
+        when(request.getBody()).thenReturn(new byte[0]);
+        HttpResponse response = mock(HttpResponse.class);
+        when(response.getStatus()).thenReturn(200);
+        when(response.getBody()).thenReturn(new byte[0]);
+        for (int i = 0; i < 5; i++) {
+            sink.write(correlation, request, response);
+        }
+
+        assertEquals(3, registry.get("filmorate.http.log.dropped").counter().count());
+        assertEquals(2, registry.get("filmorate.http.log.buffer").gauge().value());
+    }
+}
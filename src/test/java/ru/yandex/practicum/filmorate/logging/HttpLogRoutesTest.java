@@ -0,0 +1,74 @@
+package ru.yandex.practicum.filmorate.logging;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.zalando.logbook.HttpRequest;
+
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class HttpLogRoutesTest {
+
+    @Test
+    @DisplayName("Правила разбираются с методом, шаблоном и долей")
+    public void testParse() {
+        HttpLogRoutes routes = HttpLogRoutes.parse(" get /films/popular = 0.01 ,, /bulk/**=0, /users/*");
+
+        HttpLogRoutes.Route popular = routes.match("GET", "/films/popular").orElseThrow();
+        assertEquals("GET", popular.method());
+        assertEquals("/films/popular", popular.pattern());
+        assertEquals(0.01, popular.sampleRate());
+
+        HttpLogRoutes.Route bulk = routes.match("POST", "/bulk/films").orElseThrow();
+        assertNull(bulk.method());
+        assertEquals(0, bulk.sampleRate());
+        assertEquals(1, routes.match("PUT", "/users/1").orElseThrow().sampleRate(), "Доля по умолчанию — 1");
+
+        assertTrue(routes.match("POST", "/films/popular").isEmpty(), "Правило с методом не срабатывает на другой");
+        assertFalse(routes.matches("GET", "/users/1/friends"));
+        assertTrue(HttpLogRoutes.parse("").match("GET", "/films").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Доля вне диапазона от 0 до 1 отклоняется")
+    public void testInvalidRate() {
+        assertThrows(IllegalArgumentException.class, () -> HttpLogRoutes.parse("/films=1.5"));
+        assertThrows(IllegalArgumentException.class, () -> HttpLogRoutes.parse("/films=-0.1"));
+        assertThrows(NumberFormatException.class, () -> HttpLogRoutes.parse("/films=half"));
+    }
+
+    @Test
+    @DisplayName("Срабатывает первое подходящее правило")
+    public void testFirstMatchWins() {
+        HttpLogRoutes routes = HttpLogRoutes.parse("GET /films/popular=0.5, /films/**=0, /**=1");
+
+        assertEquals(0.5, routes.match("GET", "/films/popular").orElseThrow().sampleRate());
+        assertEquals(0, routes.match("DELETE", "/films/popular").orElseThrow().sampleRate());
+        assertEquals(0, routes.match("GET", "/films/1").orElseThrow().sampleRate());
+        assertEquals(1, routes.match("GET", "/users/1").orElseThrow().sampleRate());
+    }
+
+    @Test
+    @DisplayName("Запросы с долей 0 не записываются, без подходящего правила — записываются")
+    public void testRequestCondition() {
+        Predicate<HttpRequest> condition = new HttpLogConfig()
+                .requestCondition("/bulk/**=0, GET /films/popular=0, /users/**=1");
+
+        for (int i = 0; i < 1000; i++) {
+            assertFalse(condition.test(request("POST", "/bulk/likes")));
+            assertFalse(condition.test(request("GET", "/films/popular")));
+        }
+        assertTrue(condition.test(request("PUT", "/users/1/friends/2")));
+        assertTrue(condition.test(request("GET", "/films/1")));
+    }
+
+    private static HttpRequest request(String method, String path) {
+        HttpRequest request = mock(HttpRequest.class);
+        when(request.getMethod()).thenReturn(method);
+        when(request.getPath()).thenReturn(path);
+        return request;
+    }
+}
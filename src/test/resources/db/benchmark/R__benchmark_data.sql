@@ -0,0 +1,18 @@
+-- Данные для нагрузочных тестов: 1000 пользователей, 2000 фильмов, 50 000 лайков, 20 000 заявок в друзья
+INSERT INTO users (name, email, login, birthday)
+SELECT 'user' || X, 'user' || X || '@example.com', 'user' || X, DATE '1990-01-01' FROM SYSTEM_RANGE(1, 1000);
+
+INSERT INTO films (name, description, release_date, duration, mpa_id)
+SELECT 'film' || X, 'description' || X, DATEADD('DAY', X, DATE '2000-01-01'), 90 + MOD(X, 60), MOD(X, 5) + 1
+FROM SYSTEM_RANGE(1, 2000);
+
+INSERT INTO film_genre (film_id, genre_id)
+SELECT X, MOD(X, 6) + 1 FROM SYSTEM_RANGE(1, 2000);
+
+INSERT INTO film_likes (user_id, film_id)
+SELECT u.X, MOD(u.X * 31 + f.X * 17, 2000) + 1 FROM SYSTEM_RANGE(1, 1000) u, SYSTEM_RANGE(1, 50) f;
+
+INSERT INTO friends (user_id, friend_id)
+SELECT u.X, MOD(u.X + f.X * 7, 1000) + 1 FROM SYSTEM_RANGE(1, 1000) u, SYSTEM_RANGE(1, 20) f;
+
+UPDATE films f SET likes_count = (SELECT COUNT(*) FROM film_likes fl WHERE fl.film_id = f.film_id);